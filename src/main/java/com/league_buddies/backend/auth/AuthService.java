@@ -1,18 +1,28 @@
 package com.league_buddies.backend.auth;
 
+import com.league_buddies.backend.datasource.ReadYourWritesTracker;
 import com.league_buddies.backend.exception.IllegalArgumentException;
 import com.league_buddies.backend.exception.InvalidPasswordException;
+import com.league_buddies.backend.exception.ServiceBusyException;
+import com.league_buddies.backend.exception.TooManyLoginAttemptsException;
 import com.league_buddies.backend.exception.UserNotFoundException;
 import com.league_buddies.backend.exception.UsernameAlreadyExistsException;
 import com.league_buddies.backend.security.jwt.JwtService;
+import com.league_buddies.backend.security.jwt.ValidatedToken;
+import com.league_buddies.backend.security.password.AsyncPasswordEncoder;
+import com.league_buddies.backend.security.revocation.TokenRevocationStore;
+import com.league_buddies.backend.user.BuddyBitmapIndex;
 import com.league_buddies.backend.user.User;
 import com.league_buddies.backend.user.UserRepository;
 import com.league_buddies.backend.util.MessageResolver;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 @RequiredArgsConstructor
@@ -22,14 +32,27 @@ public class AuthService {
 
     private final UserRepository userRepository;
 
-    private final PasswordEncoder passwordEncoder;
+    private final AsyncPasswordEncoder asyncPasswordEncoder;
 
     private final MessageResolver messageResolver;
 
+    private final TokenRevocationStore tokenRevocationStore;
+
+    private final LoginAttemptTracker loginAttemptTracker;
+
+    private final BuddyBitmapIndex buddyBitmapIndex;
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    // The task executor of Spring Boot, injected by its bean name because the scheduler is an Executor too. The work
+    // that follows a hash, such as the insert, runs there, so the hashing pool only hashes.
+    private final Executor applicationTaskExecutor;
+
 //    @Autowired
 //    private AuthenticationManager authenticationManager;
 
-    public AuthResponse register(AuthRequest authRequest) {
+    // Hashing runs on the password hashing pool. The futures complete on the application task executor.
+    public CompletableFuture<AuthResponse> register(AuthRequest authRequest) {
         String username = authRequest.username();
         String password = authRequest.password();
 
@@ -37,20 +60,31 @@ public class AuthService {
             throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
         }
 
-        Optional<User> optionalUser = userRepository.findByEmailAddress(authRequest.username());
-        if (optionalUser.isPresent()) {
-            throw new UsernameAlreadyExistsException(messageResolver.getMessage(
-                    "usernameAlreadyExists",
-                    new Object[] {authRequest.username()}
-            ));
-        }
-
-        User newUser = userRepository.save(new User(authRequest.username(), passwordEncoder.encode(authRequest.password())));
-        String token = jwtService.generateToken(newUser.getEmailAddress());
-        return new AuthResponse(token);
+        // There is no lookup before the insert. The unique index on the email address rejects duplicates,
+        // which also covers two registrations for the same email racing each other.
+        String usernameAlreadyExistsMessage = messageResolver.getMessage(
+                "usernameAlreadyExists",
+                new Object[] {authRequest.username()}
+        );
+        return asyncPasswordEncoder.encode(authRequest.password()).thenApplyAsync(encodedPassword -> {
+            User newUser;
+            try {
+                newUser = userRepository.saveAndFlush(new User(authRequest.username(), encodedPassword));
+            } catch (DataIntegrityViolationException exception) {
+                if (User.isEmailAddressConflict(exception)) {
+                    throw new UsernameAlreadyExistsException(usernameAlreadyExistsMessage);
+                }
+                throw exception;
+            }
+            // A login right after the registration must not miss the user on a replica that is behind.
+            readYourWritesTracker.recordWrite(newUser.getEmailAddress());
+            buddyBitmapIndex.index(newUser);
+            String token = jwtService.generateToken(newUser);
+            return new AuthResponse(token);
+        }, applicationTaskExecutor);
     }
 
-    public AuthResponse login(AuthRequest authRequest) {
+    public CompletableFuture<AuthResponse> login(AuthRequest authRequest, String clientIp) {
         if (authRequest.username() == null ||
                 authRequest.password() == null ||
                 authRequest.username().trim().isEmpty() ||
@@ -58,23 +92,60 @@ public class AuthService {
         ) {
             throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
         }
-        Optional<User> optionalUser = userRepository.findByEmailAddress(authRequest.username());
+        // Reserved before the lookup so that throttled attempts cost neither a query nor a BCrypt verification, and
+        // counted as a failure until the password matches, so that parallel guesses cannot exceed the limit.
+        LoginAttemptTracker.Attempt attempt = loginAttemptTracker.reserve(authRequest.username(), clientIp);
+        if (attempt == null) {
+            throw new TooManyLoginAttemptsException(
+                    messageResolver.getMessage("tooManyLoginAttempts"),
+                    loginAttemptTracker.getRetryAfterSeconds(authRequest.username(), clientIp)
+            );
+        }
+        Optional<User> optionalUser = readYourWritesTracker.actingAs(
+                authRequest.username(), () -> userRepository.findByEmailAddress(authRequest.username())
+        );
         if (optionalUser.isEmpty()) {
             throw new UserNotFoundException(messageResolver.getMessage("userNotFound"));
         }
         User user = optionalUser.get();
-        if (passwordEncoder.matches(authRequest.password(), user.getPassword())){
-            //TODO Check if you need this because the application is working without it but it might be needed.
-//            authenticationManager.authenticate(
-//                    new UsernamePasswordAuthenticationToken(
-//                            authRequest.username(), authRequest.password()
-//                    )
-//            );
-            String token = jwtService.generateToken(user.getEmailAddress());
-            return new AuthResponse(token);
-        } else {
-            // TODO Add a way to keep track of how many times they've tried and block them after a certain number of tries.
-            throw new InvalidPasswordException(messageResolver.getMessage("invalidPassword"));
+        // Resolved here because the locale of the request is not available on the hashing thread.
+        String invalidPasswordMessage = messageResolver.getMessage("invalidPassword");
+        CompletableFuture<Boolean> matches;
+        try {
+            matches = asyncPasswordEncoder.matches(authRequest.password(), user.getPassword());
+        } catch (ServiceBusyException exception) {
+            // The password was never checked.
+            loginAttemptTracker.refund(attempt);
+            throw exception;
+        }
+        return matches.thenApplyAsync(matched -> {
+            if (matched) {
+                //TODO Check if you need this because the application is working without it but it might be needed.
+//                authenticationManager.authenticate(
+//                        new UsernamePasswordAuthenticationToken(
+//                                authRequest.username(), authRequest.password()
+//                        )
+//                );
+                loginAttemptTracker.recordSuccess(attempt);
+                String token = jwtService.generateToken(user);
+                return new AuthResponse(token);
+            } else {
+                throw new InvalidPasswordException(invalidPasswordMessage);
+            }
+        }, applicationTaskExecutor);
+    }
+
+    public void logout(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        ValidatedToken validatedToken;
+        try {
+            validatedToken = jwtService.validateToken(authorization.substring("Bearer ".length()));
+        } catch (JwtException exception) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
         }
+        // The revocation only has to last until the token would have expired on its own.
+        tokenRevocationStore.revoke(validatedToken.tokenId(), validatedToken.expiration().toInstant());
     }
 }
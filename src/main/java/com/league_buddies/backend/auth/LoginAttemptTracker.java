@@ -0,0 +1,180 @@
+package com.league_buddies.backend.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts failed logins per username and per client IP over a sliding window so that login can be rejected
+ * before a BCrypt verification is spent on it. Counters are lock-free and live in size bounded caches that
+ * drop keys which have not failed for a whole window, so a credential stuffing burst cannot exhaust memory.
+ */
+@Component
+public class LoginAttemptTracker {
+    private static final int BUCKETS = 10;
+
+    private final Cache<String, SlidingWindowCounter> failuresByUsername;
+
+    private final Cache<String, SlidingWindowCounter> failuresByIp;
+
+    private final int maxFailuresPerUsername;
+
+    private final int maxFailuresPerIp;
+
+    private final long bucketMillis;
+
+    public LoginAttemptTracker(
+            @Value("${loginThrottling.window:PT15M}") Duration window,
+            @Value("${loginThrottling.maxFailuresPerUsername:5}") int maxFailuresPerUsername,
+            @Value("${loginThrottling.maxFailuresPerIp:20}") int maxFailuresPerIp,
+            @Value("${loginThrottling.maximumTrackedKeys:100000}") long maximumTrackedKeys
+    ) {
+        this.maxFailuresPerUsername = maxFailuresPerUsername;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.bucketMillis = Math.max(1, window.toMillis() / BUCKETS);
+        this.failuresByUsername = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedKeys)
+                .expireAfterAccess(window)
+                .build();
+        this.failuresByIp = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedKeys)
+                .expireAfterAccess(window)
+                .build();
+    }
+
+    /**
+     * Counts the attempt as failed before its password is verified, so that parallel guesses cannot all pass the
+     * check before the first failure is counted. A successful attempt is refunded with {@link #recordSuccess}.
+     *
+     * @return the reserved attempt, or null if the username or the IP has no attempts left. Nothing is counted then.
+     */
+    public Attempt reserve(String username, String ip) {
+        long now = System.currentTimeMillis();
+        String normalizedUsername = normalize(username);
+        SlidingWindowCounter usernameCounter = failuresByUsername.get(
+                normalizedUsername, key -> new SlidingWindowCounter()
+        );
+        SlidingWindowCounter ipCounter = ip == null ? null : failuresByIp.get(ip, key -> new SlidingWindowCounter());
+        long usernameFailures = usernameCounter.incrementAndSum(now);
+        long ipFailures = ipCounter == null ? 0 : ipCounter.incrementAndSum(now);
+        Attempt attempt = new Attempt(normalizedUsername, ip, now);
+        if (usernameFailures > maxFailuresPerUsername || ipFailures > maxFailuresPerIp) {
+            refund(attempt);
+            return null;
+        }
+        return attempt;
+    }
+
+    // The failures of the username are cleared. Failures from the same IP against other accounts still count, only
+    // the reserved attempt is given back.
+    public void recordSuccess(Attempt attempt) {
+        failuresByUsername.invalidate(attempt.username());
+        refundIp(attempt);
+    }
+
+    /**
+     * Gives back a reserved attempt whose password could not be checked, e.g. because the hashing pool was busy.
+     */
+    public void refund(Attempt attempt) {
+        SlidingWindowCounter usernameCounter = failuresByUsername.getIfPresent(attempt.username());
+        if (usernameCounter != null) {
+            usernameCounter.decrement(attempt.time());
+        }
+        refundIp(attempt);
+    }
+
+    /**
+     * @return the seconds until the oldest failure that blocks the username or the IP leaves the window.
+     */
+    public long getRetryAfterSeconds(String username, String ip) {
+        long now = System.currentTimeMillis();
+        long retryAfterMillis = 0;
+        SlidingWindowCounter usernameCounter = failuresByUsername.getIfPresent(normalize(username));
+        if (exceeds(usernameCounter, maxFailuresPerUsername, now)) {
+            retryAfterMillis = usernameCounter.millisUntilOldestExpires(now);
+        }
+        SlidingWindowCounter ipCounter = ip == null ? null : failuresByIp.getIfPresent(ip);
+        if (exceeds(ipCounter, maxFailuresPerIp, now)) {
+            retryAfterMillis = Math.max(retryAfterMillis, ipCounter.millisUntilOldestExpires(now));
+        }
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+
+    private void refundIp(Attempt attempt) {
+        SlidingWindowCounter ipCounter = attempt.ip() == null ? null : failuresByIp.getIfPresent(attempt.ip());
+        if (ipCounter != null) {
+            ipCounter.decrement(attempt.time());
+        }
+    }
+
+    private boolean exceeds(SlidingWindowCounter counter, int maxFailures, long now) {
+        return counter != null && counter.sum(now) >= maxFailures;
+    }
+
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A login attempt counted by {@link #reserve} until it is known to have succeeded.
+     */
+    public record Attempt(String username, String ip, long time) {
+    }
+
+    /**
+     * Ring of per-bucket counts tagged with the bucket they belong to. Buckets older than the window are ignored
+     * and reused. Concurrent increments racing with a bucket reset can be lost, which is fine for throttling.
+     */
+    private class SlidingWindowCounter {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private final AtomicLongArray bucketIds = new AtomicLongArray(BUCKETS);
+
+        long incrementAndSum(long now) {
+            long bucketId = now / bucketMillis;
+            int index = (int) (bucketId % BUCKETS);
+            long currentBucketId = bucketIds.get(index);
+            if (currentBucketId != bucketId && bucketIds.compareAndSet(index, currentBucketId, bucketId)) {
+                counts.set(index, 0);
+            }
+            counts.incrementAndGet(index);
+            return sum(now);
+        }
+
+        // Only if the bucket of the counted time has not been reused since.
+        void decrement(long time) {
+            long bucketId = time / bucketMillis;
+            int index = (int) (bucketId % BUCKETS);
+            if (bucketIds.get(index) == bucketId) {
+                counts.updateAndGet(index, count -> Math.max(0, count - 1));
+            }
+        }
+
+        long millisUntilOldestExpires(long now) {
+            long oldestBucketId = now / bucketMillis - BUCKETS + 1;
+            for (long bucketId = oldestBucketId; bucketId <= now / bucketMillis; bucketId++) {
+                int index = (int) (bucketId % BUCKETS);
+                if (bucketIds.get(index) == bucketId && counts.get(index) > 0) {
+                    return (bucketId + BUCKETS) * bucketMillis - now;
+                }
+            }
+            return 0;
+        }
+
+        long sum(long now) {
+            long oldestBucketId = now / bucketMillis - BUCKETS + 1;
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (bucketIds.get(i) >= oldestBucketId) {
+                    sum += counts.get(i);
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.league_buddies.backend.champion;
+
+public record Champion(short id, String name) { }
@@ -0,0 +1,109 @@
+package com.league_buddies.backend.champion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable dictionary between champion ids and names, loaded from the champion table at startup.
+ * Users store the small integer id of their favorite champion, and every loaded user shares the one name instance
+ * held here. Names are looked up ignoring case, spaces and punctuation, so "kaisa" finds Kai'Sa.
+ */
+public class ChampionCatalog {
+    private final List<Champion> champions;
+
+    private final Champion[] championsById;
+
+    private final Map<String, Champion> championsByKey;
+
+    public ChampionCatalog(Collection<Champion> champions) {
+        this.champions = champions.stream().sorted(Comparator.comparing(Champion::name)).toList();
+        int maxId = champions.stream().mapToInt(Champion::id).max().orElse(0);
+        this.championsById = new Champion[maxId + 1];
+        Map<String, Champion> championsByKey = new HashMap<>();
+        for (Champion champion : champions) {
+            championsById[champion.id()] = champion;
+            championsByKey.put(key(champion.name()), champion);
+        }
+        this.championsByKey = Map.copyOf(championsByKey);
+    }
+
+    public List<Champion> getChampions() {
+        return champions;
+    }
+
+    public Optional<Champion> find(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(championsByKey.get(key(name)));
+    }
+
+    /**
+     * @return the name of the champion, or null if there is no champion with the id.
+     */
+    public String nameOf(short id) {
+        return id > 0 && id < championsById.length && championsById[id] != null ? championsById[id].name() : null;
+    }
+
+    public int getMaxId() {
+        return championsById.length - 1;
+    }
+
+    /**
+     * @return the champions whose name appears in the text as whole words, in either spelling, e.g. "lee sin" or
+     * "leesin".
+     */
+    public List<Champion> namedIn(String text) {
+        List<String> words = words(text);
+        List<Champion> named = new ArrayList<>();
+        for (Champion champion : champions) {
+            List<String> nameWords = words(champion.name());
+            if (Collections.indexOfSubList(words, nameWords) >= 0 || words.contains(key(champion.name()))) {
+                named.add(champion);
+            }
+        }
+        return named;
+    }
+
+    /**
+     * @return the words of the text that are not part of a champion name, see {@link #namedIn}.
+     */
+    public String withoutChampionNames(String text) {
+        List<String> words = new ArrayList<>(words(text));
+        for (Champion champion : champions) {
+            List<String> nameWords = words(champion.name());
+            int index;
+            while ((index = Collections.indexOfSubList(words, nameWords)) >= 0) {
+                words.subList(index, index + nameWords.size()).clear();
+            }
+            words.removeIf(key(champion.name())::equals);
+        }
+        return String.join(" ", words);
+    }
+
+    /**
+     * @return the champions whose name contains the text, ignoring case, spaces and punctuation.
+     */
+    public List<Champion> nameContaining(String text) {
+        String textKey = key(text);
+        if (textKey.isEmpty()) {
+            return List.of();
+        }
+        return champions.stream().filter(champion -> key(champion.name()).contains(textKey)).toList();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]", "");
+    }
+
+    private static List<String> words(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,21 @@
+package com.league_buddies.backend.champion;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/champions")
+@RequiredArgsConstructor
+public class ChampionController {
+    private final ChampionCatalog championCatalog;
+
+    @GetMapping
+    public ResponseEntity<List<String>> getChampions() {
+        return ResponseEntity.ok(championCatalog.getChampions().stream().map(Champion::name).toList());
+    }
+}
@@ -0,0 +1,33 @@
+package com.league_buddies.backend.champion;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a champion name as the id of the champion in the catalog. Hibernate gets this converter from Spring, so
+ * that it can use the catalog bean. Names are validated before they get here, see
+ * {@link com.league_buddies.backend.user.UserService}.
+ */
+@Converter
+public class ChampionConverter implements AttributeConverter<String, Short> {
+    private final ChampionCatalog championCatalog;
+
+    public ChampionConverter(ChampionCatalog championCatalog) {
+        this.championCatalog = championCatalog;
+    }
+
+    @Override
+    public Short convertToDatabaseColumn(String name) {
+        if (name == null) {
+            return null;
+        }
+        return championCatalog.find(name)
+                .map(Champion::id)
+                .orElseThrow(() -> new java.lang.IllegalArgumentException("Unknown champion: " + name));
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short id) {
+        return id == null ? null : championCatalog.nameOf(id);
+    }
+}
@@ -1,8 +1,12 @@
 package com.league_buddies.backend.configuration;
 
+import com.league_buddies.backend.security.authentication.UserDetailsCache;
+import com.league_buddies.backend.security.jwt.JwtKeyRing;
+import com.league_buddies.backend.user.User;
 import com.league_buddies.backend.user.UserRepository;
 import com.league_buddies.backend.user.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +16,7 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -21,9 +26,25 @@ public class ApplicationConfiguration {
 
     private final UserRepository userRepository;
 
+    private final UserDetailsCache userDetailsCache;
+
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmailAddress(username).get();
+        return username -> userDetailsCache.get(User.normalizeEmailAddress(username), userRepository::findByEmailAddress)
+                .orElseThrow(() -> new UsernameNotFoundException(username));
+    }
+
+    // jwtService.keyId names the current signing key. To rotate, move the current key into jwtService.retiredKeys
+    // as kid:key and configure a new key with a new id. Tokens signed with a retired key keep working until they expire.
+    @Bean
+    public JwtKeyRing jwtKeyRing(
+            @Value("${jwtService.algorithm:HS256}") String algorithm,
+            @Value("${jwtService.keyId:" + JwtKeyRing.DEFAULT_KEY_ID + "}") String keyId,
+            @Value("${jwtService.privateKey:}") String privateKey,
+            @Value("${jwtService.publicKey:}") String publicKey,
+            @Value("${jwtService.retiredKeys:}") String retiredKeys
+    ) {
+        return JwtKeyRing.of(algorithm, keyId, privateKey, publicKey, retiredKeys);
     }
 
     @Bean
@@ -0,0 +1,96 @@
+package com.league_buddies.backend.configuration;
+
+import com.league_buddies.backend.champion.Champion;
+import com.league_buddies.backend.champion.ChampionCatalog;
+import com.league_buddies.backend.user.User;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+@Configuration
+public class PersistenceConfiguration {
+
+    // The schema is managed by the Flyway migrations in db/migration. Databases created by Hibernate before
+    // migrations existed are marked as being at V1 on first start and only get the later migrations.
+    @Bean
+    public FlywayConfigurationCustomizer baselineOnMigrateCustomizer() {
+        return configuration -> configuration.baselineOnMigrate(true);
+    }
+
+    // Lets Hibernate group inserts into JDBC batches. The batch size should stay equal to User.ID_ALLOCATION_SIZE.
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(
+            @Value("${jdbcBatching.batchSize:" + User.ID_ALLOCATION_SIZE + "}") int batchSize
+    ) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+        };
+    }
+
+    // Caches for the second-level cache regions of Hibernate, bounded in entries and with a time to live, so that
+    // changes made to the database behind Hibernate's back are picked up eventually. Each context gets a cache
+    // manager of its own rather than the shared default one.
+    // The caches live on the heap of each instance and are not invalidated across instances. An update evicts only
+    // the copy of the instance that made it, so the other instances keep serving the old user, including its
+    // password, role and tokenVersion and the profile with its ETag, until secondLevelCache.timeToLive runs out.
+    // Lower it, or replace this cache manager with a clustered one, before running more than one instance.
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${secondLevelCache.maxEntries:10000}") long maxEntries,
+            @Value("${secondLevelCache.timeToLive:PT10M}") Duration timeToLive
+    ) {
+        CacheConfiguration<Object, Object> region = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .build();
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName()
+        );
+        return provider.getCacheManager(
+                URI.create("urn:league-buddies:second-level-cache:" + UUID.randomUUID()),
+                ConfigurationBuilder.newConfigurationBuilder()
+                        .withCache(User.CACHE_REGION, region)
+                        .withCache(User.NATURAL_ID_CACHE_REGION, region)
+                        .build()
+        );
+    }
+
+    // Entities annotated with @Cacheable are kept in the second-level cache. Every region must be configured in
+    // secondLevelCacheManager, so that no cache is created without bounds.
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    // Read once at startup. The JdbcTemplate waits for the Flyway migrations, so the champion table exists by then.
+    @Bean
+    public ChampionCatalog championCatalog(JdbcTemplate jdbcTemplate) {
+        return new ChampionCatalog(jdbcTemplate.query(
+                "select id, name from champion",
+                (row, rowNumber) -> new Champion(row.getShort("id"), row.getString("name"))
+        ));
+    }
+}
@@ -0,0 +1,72 @@
+package com.league_buddies.backend.configuration;
+
+import com.league_buddies.backend.datasource.ReadWriteRoutingDataSource;
+import com.league_buddies.backend.datasource.ReadYourWritesTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single data source with one that routes read-only transactions to the replicas listed in
+ * readReplicas.urls, see {@link ReadWriteRoutingDataSource}. The primary is configured with spring.datasource as
+ * before, and the replicas share its credentials unless readReplicas.username and readReplicas.password are set.
+ * Without readReplicas.urls everything goes to spring.datasource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "readReplicas.urls")
+public class ReadReplicaConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            ReadYourWritesTracker readYourWritesTracker,
+            @Value("${readReplicas.urls}") List<String> replicaUrls,
+            @Value("${readReplicas.username:}") String replicaUsername,
+            @Value("${readReplicas.password:}") String replicaPassword
+    ) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        bindHikariProperties(environment, primary);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername)
+                    .password(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword)
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            bindHikariProperties(environment, replica);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, readYourWritesTracker);
+    }
+
+    // Hibernate, Flyway and JdbcTemplate all use this one.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    // The pools are built here instead of by Spring Boot, so spring.datasource.hikari has to be applied by hand.
+    private static void bindHikariProperties(Environment environment, HikariDataSource dataSource) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+    }
+}
@@ -1,6 +1,7 @@
 package com.league_buddies.backend.configuration;
 
 import com.league_buddies.backend.security.authentication.AuthenticationFilter;
+import com.league_buddies.backend.user.Role;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -31,6 +32,8 @@ public class SecurityConfiguration {
                 .permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/v1/auth/**")
                 .permitAll()
+                .requestMatchers("/api/v1/admin/**")
+                .hasAuthority(Role.ADMIN.name())
                 .anyRequest()
                 .authenticated()
 
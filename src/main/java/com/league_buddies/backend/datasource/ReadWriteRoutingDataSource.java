@@ -0,0 +1,76 @@
+package com.league_buddies.backend.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions to the replicas in turn and everything else to the primary.
+ * The read-only flag of a transaction is only known once the transaction has begun, after Hibernate and Spring have
+ * asked for its connection, so this has to sit behind a LazyConnectionDataSourceProxy, which fetches the connection
+ * when the first statement runs. Reads of users who wrote recently stay on the primary, see
+ * {@link ReadYourWritesTracker}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final String PRIMARY = "primary";
+
+    private final List<String> replicas = new ArrayList<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(
+            DataSource primary,
+            List<? extends DataSource> replicas,
+            ReadYourWritesTracker readYourWritesTracker
+    ) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String replica = "replica-" + i;
+            this.replicas.add(replica);
+            targetDataSources.put(replica, replicas.get(i));
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWritesTracker.recordWriteOnCommit();
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || readYourWritesTracker.mustReadFromPrimary()) {
+            return PRIMARY;
+        }
+        return replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+    }
+
+    // Closes the connection pools of the primary and the replicas.
+    @Override
+    public void close() {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception exception) {
+                    logger.warn("Could not close data source", exception);
+                }
+            }
+        }
+    }
+}
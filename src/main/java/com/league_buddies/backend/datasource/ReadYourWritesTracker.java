@@ -0,0 +1,102 @@
+package com.league_buddies.backend.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.league_buddies.backend.user.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which users wrote to the primary within the last readReplicas.readYourWritesWindow, so that
+ * {@link ReadWriteRoutingDataSource} sends their reads to the primary until the replicas have caught up. The window
+ * should be longer than the usual replication lag, and a zero window turns the fallback off. Users are identified by
+ * the normalized email address of the authenticated user, or of the user given to {@link #actingAs}.
+ */
+@Component
+public class ReadYourWritesTracker {
+    private final Cache<String, Boolean> recentWriters;
+
+    private final ThreadLocal<String> actingUser = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(
+            @Value("${readReplicas.readYourWritesWindow:PT5S}") Duration window,
+            @Value("${readReplicas.maximumTrackedUsers:100000}") long maximumTrackedUsers
+    ) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedUsers)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void recordWrite(String user) {
+        if (user != null) {
+            recentWriters.put(User.normalizeEmailAddress(user), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Records a write of the current user once the current transaction commits. Does nothing outside a transaction
+     * or without a current user.
+     */
+    public void recordWriteOnCommit() {
+        String user = currentUser();
+        if (user == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordWrite(user);
+            }
+        });
+    }
+
+    /**
+     * @return whether the current user wrote within the window, in which case the replicas may not have their
+     * changes yet.
+     */
+    public boolean mustReadFromPrimary() {
+        String user = currentUser();
+        return user != null && recentWriters.getIfPresent(user) != null;
+    }
+
+    /**
+     * Runs the action on behalf of the given user, e.g. the lookup of a login, which happens before the user is
+     * authenticated.
+     */
+    public <T> T actingAs(String user, Supplier<T> action) {
+        String previousUser = actingUser.get();
+        actingUser.set(User.normalizeEmailAddress(user));
+        try {
+            return action.get();
+        } finally {
+            if (previousUser == null) {
+                actingUser.remove();
+            } else {
+                actingUser.set(previousUser);
+            }
+        }
+    }
+
+    private String currentUser() {
+        String user = actingUser.get();
+        if (user != null) {
+            return user;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return User.normalizeEmailAddress(authentication.getName());
+    }
+}
@@ -1,5 +1,9 @@
 package com.league_buddies.backend.exception;
 
+import com.league_buddies.backend.util.MessageResolver;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -11,7 +15,9 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 public class CustomExceptionHandler {
+    private final MessageResolver messageResolver;
 
     @ExceptionHandler(value = {UserNotFoundException.class})
     public ResponseEntity<Object> handleUserNotFoundException(UserNotFoundException exception) {
@@ -40,6 +46,25 @@ public class CustomExceptionHandler {
         return ResponseEntity.status(status).body(apiException);
     }
 
+    @ExceptionHandler(value = {PreconditionFailedException.class})
+    public ResponseEntity<Object> handlePreconditionFailedException(PreconditionFailedException exception) {
+        HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+        ApiException apiException = new ApiException(
+                status, exception.getMessage(), ZonedDateTime.now(ZoneId.of("Z"))
+        );
+        return ResponseEntity.status(status).body(apiException);
+    }
+
+    // The row was updated by another request between reading and writing it.
+    @ExceptionHandler(value = {OptimisticLockingFailureException.class})
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException exception) {
+        HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+        ApiException apiException = new ApiException(
+                status, messageResolver.getMessage("userModified"), ZonedDateTime.now(ZoneId.of("Z"))
+        );
+        return ResponseEntity.status(status).body(apiException);
+    }
+
     @ExceptionHandler(value = {HttpMessageNotReadableException.class})
     public ResponseEntity<Object> handleMessageNotReadableException(HttpMessageNotReadableException exception) {
         HttpStatus status = HttpStatus.BAD_REQUEST;
@@ -57,4 +82,26 @@ public class CustomExceptionHandler {
         );
         return ResponseEntity.status(status).body(apiException);
     }
+
+    @ExceptionHandler(value = {ServiceBusyException.class})
+    public ResponseEntity<Object> handleServiceBusyException(ServiceBusyException exception) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        ApiException apiException = new ApiException(
+                status, exception.getMessage(), ZonedDateTime.now(ZoneId.of("Z"))
+        );
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(apiException);
+    }
+
+    @ExceptionHandler(value = {TooManyLoginAttemptsException.class})
+    public ResponseEntity<Object> handleTooManyLoginAttemptsException(TooManyLoginAttemptsException exception) {
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        ApiException apiException = new ApiException(
+                status, exception.getMessage(), ZonedDateTime.now(ZoneId.of("Z"))
+        );
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(apiException);
+    }
 }
@@ -1,10 +1,16 @@
 package com.league_buddies.backend.security.authentication;
 
 import com.league_buddies.backend.security.jwt.JwtService;
+import com.league_buddies.backend.security.jwt.TokenPrincipal;
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
+import com.league_buddies.backend.security.jwt.ValidatedToken;
+import com.league_buddies.backend.security.revocation.TokenRevocationStore;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,6 +28,13 @@ public class AuthenticationFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
 
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    private final TokenRevocationStore tokenRevocationStore;
+
+    @Value("${jwtService.statelessAuthorization:false}")
+    private boolean statelessAuthorization;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -35,10 +48,37 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         }
         // JWT tokens start with "Bearer ". We have to remove that part to get the actual token.
         token = authorization.substring("Bearer ".length());
-        String username = jwtService.extractSubject(token);
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // The token is parsed and verified once, everything below reads from the result.
+        final ValidatedToken validatedToken;
+        try {
+            validatedToken = jwtService.validateToken(token);
+        } catch (JwtException exception) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String username = validatedToken.subject();
+        if (username == null
+                || SecurityContextHolder.getContext().getAuthentication() != null
+                || tokenRevocationStore.isRevoked(validatedToken.tokenId())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // In stateless mode the authorities come from the verified claims, so no user has to be loaded.
+        // Older tokens without the claims still go through the database lookup below.
+        if (statelessAuthorization && validatedToken.hasAuthorizationClaims()) {
+            if (tokenVersionRegistry.isCurrent(validatedToken.userId(), validatedToken.tokenVersion())) {
+                TokenPrincipal principal = new TokenPrincipal(
+                        validatedToken.userId(), username, validatedToken.role()
+                );
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(new UsernamePasswordAuthenticationToken(
+                        principal, null, principal.getAuthorities()
+                ));
+                SecurityContextHolder.setContext(context);
+            }
+        } else {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if(jwtService.isTokenValid(token, userDetails)) {
+            if(jwtService.isTokenValid(validatedToken, userDetails)) {
                 // This is the recommended way for setting the context by Spring Security.
                 SecurityContext context = SecurityContextHolder.createEmptyContext();
                 context.setAuthentication(new UsernamePasswordAuthenticationToken(
@@ -0,0 +1,69 @@
+package com.league_buddies.backend.security.authentication;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.league_buddies.backend.user.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Caches the users loaded for authentication by email address so that authenticated requests
+ * do not query the database every time. Caffeine uses W-TinyLFU admission, so frequently active
+ * users stay cached while one-off lookups get evicted first.
+ * Entries have to be evicted whenever a user is updated or deleted.
+ */
+@Component
+public class UserDetailsCache {
+    private final Cache<String, User> cache;
+
+    public UserDetailsCache(
+            @Value("${userDetailsCache.maximumSize:10000}") long maximumSize,
+            @Value("${userDetailsCache.expireAfterWrite:PT5M}") Duration expireAfterWrite,
+            MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    /**
+     * Returns the cached user or loads it with the given loader. Missing users are not cached.
+     */
+    public Optional<User> get(String emailAddress, Function<String, Optional<User>> loader) {
+        return Optional.ofNullable(cache.get(emailAddress, key -> loader.apply(key).orElse(null)));
+    }
+
+    public void evict(String emailAddress) {
+        if (emailAddress != null) {
+            cache.invalidate(emailAddress);
+        }
+    }
+
+    /**
+     * Evicts users by id for callers that delete without loading the user first. This scans the cache, which is
+     * bounded, instead of keeping a second index that would have to stay in sync on every load.
+     */
+    public void evictAllById(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            Set<Long> evictedIds = new HashSet<>(ids);
+            cache.asMap().values().removeIf(user -> evictedIds.contains(user.getId()));
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
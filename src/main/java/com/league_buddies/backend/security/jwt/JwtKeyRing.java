@@ -0,0 +1,133 @@
+package com.league_buddies.backend.security.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Signing and verification keys for JWTs, looked up by the kid header of the token.
+ * New tokens are signed with the current key only. Retired keys still verify the tokens they signed until those
+ * tokens expire, which allows the signing key to be rotated without logging everybody out.
+ * With RS256 the ring can be built from public keys only, so other nodes can verify tokens without the private key.
+ */
+public class JwtKeyRing {
+    public static final String DEFAULT_KEY_ID = "default";
+
+    private final SignatureAlgorithm algorithm;
+
+    private final String signingKeyId;
+
+    private final Key signingKey;
+
+    private final Map<String, Key> verificationKeys;
+
+    private JwtKeyRing(SignatureAlgorithm algorithm, String signingKeyId, Key signingKey, Map<String, Key> verificationKeys) {
+        this.algorithm = algorithm;
+        this.signingKeyId = signingKeyId;
+        this.signingKey = signingKey;
+        this.verificationKeys = Map.copyOf(verificationKeys);
+    }
+
+    /**
+     * Single HMAC key ring, equivalent to the original single secret setup.
+     */
+    public static JwtKeyRing hmac(String privateKey) {
+        return of("HS256", DEFAULT_KEY_ID, privateKey, null, null);
+    }
+
+    /**
+     * @param algorithm HS256 or RS256.
+     * @param keyId kid of the current key.
+     * @param privateKey Base64 HMAC secret, or Base64 PKCS#8 RSA private key. May be empty for RS256 verify-only nodes.
+     * @param publicKey Base64 X.509 RSA public key of the current key. Unused for HS256.
+     * @param retiredKeys Comma separated {@code kid:key} pairs that only verify. HMAC secrets or RSA public keys.
+     */
+    public static JwtKeyRing of(String algorithm, String keyId, String privateKey, String publicKey, String retiredKeys) {
+        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+        if (signatureAlgorithm != SignatureAlgorithm.HS256 && signatureAlgorithm != SignatureAlgorithm.RS256) {
+            throw new IllegalArgumentException("Unsupported JWT algorithm: " + algorithm);
+        }
+        boolean isHmac = signatureAlgorithm.isHmac();
+        Map<String, Key> verificationKeys = new HashMap<>();
+        if (retiredKeys != null && !retiredKeys.isBlank()) {
+            for (String retiredKey : retiredKeys.split(",")) {
+                String[] parts = retiredKey.trim().split(":", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Retired JWT keys must be formatted as kid:key");
+                }
+                verificationKeys.put(parts[0], isHmac ? hmacKey(parts[1]) : rsaPublicKey(parts[1]));
+            }
+        }
+
+        Key signingKey = null;
+        if (isHmac) {
+            signingKey = hmacKey(privateKey);
+            verificationKeys.put(keyId, signingKey);
+        } else {
+            if (privateKey != null && !privateKey.isBlank()) {
+                signingKey = rsaPrivateKey(privateKey);
+            }
+            verificationKeys.put(keyId, rsaPublicKey(publicKey));
+        }
+        return new JwtKeyRing(signatureAlgorithm, keyId, signingKey, verificationKeys);
+    }
+
+    public SignatureAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    public String signingKeyId() {
+        return signingKeyId;
+    }
+
+    public Key signingKey() {
+        if (signingKey == null) {
+            throw new IllegalStateException("This node only holds verification keys and cannot sign tokens.");
+        }
+        return signingKey;
+    }
+
+    /**
+     * Tokens issued before key ids were added have no kid. They are checked against the key named "default" if it is
+     * still in the ring, otherwise against the current key.
+     *
+     * @return the verification key or null if the kid is unknown.
+     */
+    public Key verificationKey(String keyId) {
+        if (keyId == null) {
+            return verificationKeys.getOrDefault(DEFAULT_KEY_ID, verificationKeys.get(signingKeyId));
+        }
+        return verificationKeys.get(keyId);
+    }
+
+    private static Key hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    private static Key rsaPrivateKey(String encodedKey) {
+        try {
+            return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Decoders.BASE64.decode(encodedKey)));
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalArgumentException("Invalid RSA private key", exception);
+        }
+    }
+
+    private static Key rsaPublicKey(String encodedKey) {
+        if (encodedKey == null || encodedKey.isBlank()) {
+            throw new IllegalArgumentException("RS256 requires a public key for every key id");
+        }
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Decoders.BASE64.decode(encodedKey)));
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalArgumentException("Invalid RSA public key", exception);
+        }
+    }
+}
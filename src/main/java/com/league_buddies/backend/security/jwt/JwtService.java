@@ -1,64 +1,116 @@
 package com.league_buddies.backend.security.jwt;
 
+import com.league_buddies.backend.user.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import java.security.Key;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.UUID;
 
 @Service
 public class JwtService {
+    public static final String USER_ID_CLAIM = "uid";
 
-    @Value("${jwtService.privateKey}")
-    private String privateKey;
+    public static final String ROLE_CLAIM = "role";
 
-    public JwtService(@Value("${jwtService.privateKey}") String privateKey) {
-        this.privateKey = privateKey;
+    public static final String TOKEN_VERSION_CLAIM = "tv";
+
+    private static final long TOKEN_LIFETIME_MILLIS = 86400000;
+
+    // The key ring and parser are immutable and thread safe, so they are built once instead of on every request.
+    private final JwtKeyRing keyRing;
+
+    private final JwtParser jwtParser;
+
+    @Autowired
+    public JwtService(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    public JwtService(String privateKey) {
+        this(JwtKeyRing.hmac(privateKey));
+    }
+
+    /**
+     * Generates a token that also carries the user id, role and token version so that requests can be
+     * authorized from the token alone when stateless authorization is enabled.
+     */
+    public String generateToken(User user) {
+        return sign(Jwts
+                .builder()
+                .setSubject(user.getEmailAddress())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion()));
     }
 
     public String generateToken(String username) {
-        return Jwts
+        return sign(Jwts
                 .builder()
-                .setSubject(username)
+                .setSubject(username));
+    }
+
+    private String sign(JwtBuilder jwtBuilder) {
+        return jwtBuilder
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.signingKeyId())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 86400000))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_LIFETIME_MILLIS))
+                .signWith(keyRing.signingKey(), keyRing.algorithm())
                 .compact();
     }
 
-    private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Parses and verifies the token a single time.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, has a bad signature or is expired.
+     */
+    public ValidatedToken validateToken(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return new ValidatedToken(claims.getSubject(), claims.getExpiration(), claims);
     }
 
     public String extractSubject(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaims(token).getExpiration();
+        return validateToken(token).subject();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(privateKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public boolean isTokenValid(ValidatedToken validatedToken, UserDetails userDetails) {
+        return validatedToken.subject().equals(userDetails.getUsername())
+                && !validatedToken.isExpired()
+                && hasCurrentTokenVersion(validatedToken, userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Tokens issued before the role changed are rejected. Tokens without a version predate the claim and are accepted.
+    private boolean hasCurrentTokenVersion(ValidatedToken validatedToken, UserDetails userDetails) {
+        if (!(userDetails instanceof User user) || validatedToken.claims().get(TOKEN_VERSION_CLAIM) == null) {
+            return true;
+        }
+        return validatedToken.tokenVersion() >= user.getTokenVersion();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        return extractSubject(token).equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return isTokenValid(validateToken(token), userDetails);
     }
 }
@@ -0,0 +1,22 @@
+package com.league_buddies.backend.security.jwt;
+
+import com.league_buddies.backend.user.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Principal built straight from verified token claims when stateless authorization is enabled.
+ */
+public record TokenPrincipal(long id, String username, Role role) implements AuthenticatedPrincipal {
+
+    public List<SimpleGrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,47 @@
+package com.league_buddies.backend.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.league_buddies.backend.user.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Keeps the lowest token version that is still accepted per user, so that stateless authorization can check tokens
+ * without loading the user. The token version stored on the user row is the source of truth: a user that is not
+ * cached is read from it, and a user without a row is deleted, so none of its tokens are accepted. Changes made on
+ * this node are applied right away. Changes made on other nodes, such as a password change or a deletion, are picked
+ * up once the entry expires, so another node accepts a revoked token for at most tokenVersionRegistry.expireAfterWrite,
+ * 30 seconds by default. A shorter bound costs one lookup by primary key per active user and interval.
+ */
+@Component
+public class TokenVersionRegistry {
+    private static final int REVOKED = Integer.MAX_VALUE;
+
+    private final LoadingCache<Long, Integer> minimumVersions;
+
+    public TokenVersionRegistry(
+            UserRepository userRepository,
+            @Value("${tokenVersionRegistry.maximumSize:100000}") long maximumSize,
+            @Value("${tokenVersionRegistry.expireAfterWrite:PT30S}") Duration expireAfterWrite
+    ) {
+        this.minimumVersions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build(userId -> userRepository.findTokenVersionById(userId).orElse(REVOKED));
+    }
+
+    public void bump(long userId, int tokenVersion) {
+        minimumVersions.asMap().merge(userId, tokenVersion, Math::max);
+    }
+
+    public void revoke(long userId) {
+        minimumVersions.put(userId, REVOKED);
+    }
+
+    public boolean isCurrent(long userId, int tokenVersion) {
+        return tokenVersion >= minimumVersions.get(userId);
+    }
+}
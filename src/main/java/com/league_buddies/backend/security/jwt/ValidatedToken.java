@@ -0,0 +1,43 @@
+package com.league_buddies.backend.security.jwt;
+
+import com.league_buddies.backend.user.Role;
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Result of parsing and verifying a JWT once. Everything the request pipeline needs
+ * from the token is read from here instead of parsing the token again.
+ */
+public record ValidatedToken(String subject, Date expiration, Claims claims) {
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    // Unique token id (jti) used to revoke a single token.
+    public String tokenId() {
+        return claims.getId();
+    }
+
+    /**
+     * Tokens issued before the user id, role and token version were embedded do not carry these claims.
+     */
+    public boolean hasAuthorizationClaims() {
+        return claims.get(JwtService.USER_ID_CLAIM) != null
+                && claims.get(JwtService.ROLE_CLAIM) != null
+                && claims.get(JwtService.TOKEN_VERSION_CLAIM) != null;
+    }
+
+    public long userId() {
+        return claims.get(JwtService.USER_ID_CLAIM, Number.class).longValue();
+    }
+
+    public Role role() {
+        return Role.valueOf(claims.get(JwtService.ROLE_CLAIM, String.class));
+    }
+
+    public int tokenVersion() {
+        return claims.get(JwtService.TOKEN_VERSION_CLAIM, Number.class).intValue();
+    }
+}
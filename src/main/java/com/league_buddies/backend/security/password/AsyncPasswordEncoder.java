@@ -0,0 +1,143 @@
+package com.league_buddies.backend.security.password;
+
+import com.league_buddies.backend.exception.ServiceBusyException;
+import com.league_buddies.backend.util.MessageResolver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt hashing on a bounded pool sized to the CPU instead of on request threads, so a burst of logins
+ * cannot take every request thread away from cheap endpoints. When the queue is full the work is rejected
+ * right away with a {@link ServiceBusyException} instead of piling up.
+ */
+@Component
+public class AsyncPasswordEncoder {
+    private final PasswordEncoder passwordEncoder;
+
+    private final MessageResolver messageResolver;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long retryAfterSeconds;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    public AsyncPasswordEncoder(
+            PasswordEncoder passwordEncoder,
+            MessageResolver messageResolver,
+            MeterRegistry meterRegistry,
+            @Value("${passwordHashing.threads:0}") int threads,
+            @Value("${passwordHashing.queueCapacity:64}") int queueCapacity,
+            @Value("${passwordHashing.retryAfter:PT1S}") Duration retryAfter
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.messageResolver = messageResolver;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("passwordHashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("passwordHashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("passwordHashing.duration")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("passwordHashing.duration")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes a batch of passwords for bulk work such as user imports. At most one task per hashing thread is in
+     * flight at a time, so interactive logins still find room in the queue. If the queue is full anyway the batch
+     * waits for its own tasks to finish and tries again, and fails with a {@link ServiceBusyException} once none of
+     * them are left, so that the hashing never moves to the calling thread.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int maxInFlight = executor.getMaximumPoolSize();
+        List<CompletableFuture<String>> encodedPasswords = new ArrayList<>(rawPasswords.size());
+        for (CharSequence rawPassword : rawPasswords) {
+            if (encodedPasswords.size() >= maxInFlight) {
+                encodedPasswords.get(encodedPasswords.size() - maxInFlight).join();
+            }
+            Supplier<String> task = () -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword));
+            encodedPasswords.add(submitWhenQueued(task, encodedPasswords));
+        }
+        return encodedPasswords.stream().map(CompletableFuture::join).toList();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(task), executor);
+        } catch (RejectedExecutionException exception) {
+            throw new ServiceBusyException(messageResolver.getMessage("serviceBusy"), retryAfterSeconds);
+        }
+    }
+
+    private <T> CompletableFuture<T> submitWhenQueued(Supplier<T> task, List<CompletableFuture<T>> inFlight) {
+        while (true) {
+            try {
+                return CompletableFuture.supplyAsync(task, executor);
+            } catch (RejectedExecutionException exception) {
+                CompletableFuture<T> pending = inFlight.stream()
+                        .filter(future -> !future.isDone())
+                        .findFirst()
+                        .orElseThrow(() -> new ServiceBusyException(
+                                messageResolver.getMessage("serviceBusy"), retryAfterSeconds
+                        ));
+                pending.join();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
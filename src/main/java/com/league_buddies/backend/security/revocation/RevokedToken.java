@@ -0,0 +1,25 @@
+package com.league_buddies.backend.security.revocation;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "revoked_token")
+public class RevokedToken {
+    @Id
+    private String jti;
+
+    // When the revoked token would have expired anyway. The row can be deleted after that.
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
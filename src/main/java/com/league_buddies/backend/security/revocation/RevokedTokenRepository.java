@@ -0,0 +1,24 @@
+package com.league_buddies.backend.security.revocation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    public boolean existsByJtiAndExpiresAtAfter(String jti, Instant now);
+
+    @Query("select r.jti from RevokedToken r where r.expiresAt > :now")
+    public List<String> findActiveTokenIds(@Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    public int deleteExpired(@Param("now") Instant now);
+}
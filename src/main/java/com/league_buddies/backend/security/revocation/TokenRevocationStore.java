@@ -0,0 +1,65 @@
+package com.league_buddies.backend.security.revocation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Denylist of revoked token ids (jti). Revocations are stored in the database so that every node sees them,
+ * and an in-memory Bloom filter answers the common "not revoked" case without touching the database.
+ * Only Bloom filter hits are confirmed with a query.
+ * Rows are removed once the token would have expired anyway, and the filter is rebuilt from the remaining
+ * rows on every refresh, which also picks up revocations made on other nodes.
+ */
+@Component
+public class TokenRevocationStore {
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final int expectedRevocations;
+
+    private final double falsePositiveProbability;
+
+    private volatile BloomFilter bloomFilter;
+
+    public TokenRevocationStore(
+            RevokedTokenRepository revokedTokenRepository,
+            @Value("${tokenRevocation.expectedRevocations:100000}") int expectedRevocations,
+            @Value("${tokenRevocation.falsePositiveProbability:0.001}") double falsePositiveProbability
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.bloomFilter = new BloomFilter(expectedRevocations, falsePositiveProbability);
+    }
+
+    // Revocations are rare, so they share a lock with refresh() to make sure none are lost while the filter is swapped.
+    public synchronized void revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+        bloomFilter.put(tokenId);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedTokenRepository.existsByJtiAndExpiresAtAfter(tokenId, Instant.now());
+    }
+
+    @Scheduled(fixedDelayString = "${tokenRevocation.refreshInterval:PT30S}")
+    public synchronized void refresh() {
+        Instant now = Instant.now();
+        revokedTokenRepository.deleteExpired(now);
+        List<String> activeTokenIds = revokedTokenRepository.findActiveTokenIds(now);
+        BloomFilter refreshedFilter = new BloomFilter(
+                Math.max(expectedRevocations, activeTokenIds.size()), falsePositiveProbability
+        );
+        activeTokenIds.forEach(refreshedFilter::put);
+        bloomFilter = refreshedFilter;
+    }
+}
@@ -0,0 +1,373 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.champion.Champion;
+import com.league_buddies.backend.champion.ChampionCatalog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the buddy search attributes, so that filter changes in the UI can be answered without a query.
+ * Every server, position, player type, champion and whole percent of win rate keeps a compressed Roaring bitmap of the ids of
+ * the users that have it, and a filter becomes a few bitmap ORs and ANDs. Dense bitmaps take about one bit per user,
+ * sparse ones a few bytes per user, so the heap footprint is bounded by the number of users times the number of
+ * attributes a user has, independent of how the filters are combined.
+ * <p>
+ * The index is built once the application is ready and then kept current by the services that write users.
+ * Win rates are bucketed, so the users in the two edge buckets of a win rate range are checked against their exact
+ * win rate, which is kept for the scoring anyway.
+ */
+@Component
+public class BuddyBitmapIndex {
+    private static final int WIN_RATE_BUCKETS = 101;
+
+    private static final int WIN_RATE_BUCKETS_PER_TENS = 10;
+
+    private final UserRepository userRepository;
+
+    private final ChampionCatalog championCatalog;
+
+    private final int rebuildPageSize;
+
+    private final RoaringBitmap users = new RoaringBitmap();
+
+    private final RoaringBitmap[] byServer = newBitmaps(Server.values().length);
+
+    private final RoaringBitmap[] byPosition = newBitmaps(Position.values().length);
+
+    private final RoaringBitmap[] byPlayerType = newBitmaps(PlayerType.values().length);
+
+    private final RoaringBitmap[] byWinRate = newBitmaps(WIN_RATE_BUCKETS);
+
+    // Each user is also in the bitmap of its tens of win rate, so that a wide range is a union of a few tens instead
+    // of up to a hundred buckets, for one more bitmap per user.
+    private final RoaringBitmap[] byWinRateTens = newBitmaps(WIN_RATE_BUCKETS / WIN_RATE_BUCKETS_PER_TENS + 1);
+
+    // Indexed by champion id.
+    private final RoaringBitmap[] byChampion;
+
+    private final List<RoaringBitmap[]> attributeBitmaps;
+
+    private final BuddyProfileColumns profiles = new BuddyProfileColumns();
+
+    // Roaring bitmaps are not thread safe. Queries only read the bitmaps and build new ones, so they share the lock.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Ids written while a rebuild runs. The rebuild skips them, so it cannot overwrite them with what it read earlier.
+    private RoaringBitmap writtenDuringRebuild;
+
+    public BuddyBitmapIndex(
+            UserRepository userRepository,
+            ChampionCatalog championCatalog,
+            MeterRegistry meterRegistry,
+            @Value("${buddyIndex.rebuildPageSize:10000}") int rebuildPageSize
+    ) {
+        this.userRepository = userRepository;
+        this.championCatalog = championCatalog;
+        this.rebuildPageSize = rebuildPageSize;
+        this.byChampion = newBitmaps(championCatalog.getMaxId() + 1);
+        this.attributeBitmaps = List.of(byServer, byPosition, byPlayerType, byWinRate, byWinRateTens, byChampion);
+
+        Gauge.builder("buddyIndex.users", this, BuddyBitmapIndex::size)
+                .register(meterRegistry);
+        Gauge.builder("buddyIndex.sizeInBytes", this, BuddyBitmapIndex::sizeInBytes)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads every user from the database one page at a time. Writes that happen meanwhile are kept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = new RoaringBitmap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long afterId = 0;
+            List<BuddyIndexEntry> entries;
+            do {
+                entries = userRepository.findBuddyIndexEntries(afterId, PageRequest.ofSize(rebuildPageSize));
+                lock.writeLock().lock();
+                try {
+                    for (BuddyIndexEntry entry : entries) {
+                        if (!writtenDuringRebuild.contains(toIndexId(entry.id()))) {
+                            put(entry);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!entries.isEmpty()) {
+                    afterId = entries.get(entries.size() - 1).id();
+                }
+            } while (entries.size() == rebuildPageSize);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                writtenDuringRebuild = null;
+                optimize();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds or replaces the attributes of a user. Inside a transaction this waits for the commit.
+     */
+    public void index(User user) {
+        BuddyIndexEntry entry = BuddyIndexEntry.of(user);
+        afterCommit(() -> write(List.of(entry.id()), List.of(entry)));
+    }
+
+    public void indexAll(Collection<User> users) {
+        List<BuddyIndexEntry> entries = users.stream().map(BuddyIndexEntry::of).toList();
+        afterCommit(() -> write(entries.stream().map(BuddyIndexEntry::id).toList(), entries));
+    }
+
+    public void remove(long id) {
+        removeAll(List.of(id));
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        List<Long> removedIds = List.copyOf(ids);
+        afterCommit(() -> write(removedIds, List.of()));
+    }
+
+    /**
+     * @return the ids of the users matching the criteria, as a new bitmap owned by the caller.
+     */
+    public RoaringBitmap candidates(BuddySearchCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            // The single bitmaps are intersected first, so the unions below are intersected with what is left.
+            List<RoaringBitmap> filters = new ArrayList<>(5);
+            if (criteria.favoriteChampion() != null) {
+                // A name that is no champion matches nobody.
+                filters.add(championCatalog.find(criteria.favoriteChampion())
+                        .map(champion -> byChampion[champion.id()])
+                        .orElseGet(RoaringBitmap::new));
+            }
+            if (criteria.favoritePosition() != null) {
+                filters.add(byPosition[criteria.favoritePosition().ordinal()]);
+            }
+            if (criteria.playerType() != null) {
+                filters.add(byPlayerType[criteria.playerType().ordinal()]);
+            }
+            if (criteria.servers() != null && !criteria.servers().isEmpty()) {
+                filters.add(FastAggregation.or(
+                        criteria.servers().stream().map(server -> byServer[server.ordinal()]).iterator()
+                ));
+            }
+            boolean filtersWinRate = criteria.minWinRate() != null || criteria.maxWinRate() != null;
+            int fromBucket = criteria.minWinRate() == null ? 0 : toWinRateBucket(criteria.minWinRate());
+            int toBucket = criteria.maxWinRate() == null
+                    ? WIN_RATE_BUCKETS - 1
+                    : toWinRateBucket(criteria.maxWinRate());
+            if (filtersWinRate) {
+                filters.add(winRateRange(fromBucket, toBucket));
+            }
+
+            if (filters.isEmpty()) {
+                return users.clone();
+            }
+            RoaringBitmap candidates = filters.get(0).clone();
+            for (int i = 1; i < filters.size(); i++) {
+                candidates.and(filters.get(i));
+            }
+            if (filtersWinRate) {
+                removeOutsideWinRateRange(candidates, byWinRate[fromBucket], criteria);
+                if (toBucket != fromBucket) {
+                    removeOutsideWinRateRange(candidates, byWinRate[toBucket], criteria);
+                }
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Must hold the read lock. Whole tens inside the range come from their tens bitmap, the rest bucket by bucket.
+    private RoaringBitmap winRateRange(int fromBucket, int toBucket) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>();
+        int bucket = fromBucket;
+        while (bucket <= toBucket) {
+            if (bucket % WIN_RATE_BUCKETS_PER_TENS == 0 && bucket + WIN_RATE_BUCKETS_PER_TENS - 1 <= toBucket) {
+                bitmaps.add(byWinRateTens[bucket / WIN_RATE_BUCKETS_PER_TENS]);
+                bucket += WIN_RATE_BUCKETS_PER_TENS;
+            } else {
+                bitmaps.add(byWinRate[bucket]);
+                bucket++;
+            }
+        }
+        return FastAggregation.or(bitmaps.iterator());
+    }
+
+    // Must hold the read lock. Only the candidates in an edge bucket can lie outside the range, and only by a fraction
+    // of a percent, so just those are compared with their exact win rate.
+    private void removeOutsideWinRateRange(
+            RoaringBitmap candidates,
+            RoaringBitmap edgeBucket,
+            BuddySearchCriteria criteria
+    ) {
+        for (int id : RoaringBitmap.and(candidates, edgeBucket)) {
+            float winRate = profiles.winRate(id);
+            if ((criteria.minWinRate() != null && winRate < criteria.minWinRate())
+                    || (criteria.maxWinRate() != null && winRate > criteria.maxWinRate())) {
+                candidates.remove(id);
+            }
+        }
+    }
+
+    public long count(BuddySearchCriteria criteria) {
+        return candidates(criteria).getLongCardinality();
+    }
+
+    /**
+     * Ranks the indexed users by how well they fit the given profile, see {@link CompatibilityScorer}.
+     * The user of the profile is left out.
+     */
+    public List<BuddyScore> topMatches(BuddyIndexEntry profile, int k) {
+        lock.readLock().lock();
+        try {
+            return profiles.topMatches(profile, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return users.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long sizeInBytes = users.getLongSizeInBytes() + profiles.sizeInBytes();
+            for (RoaringBitmap[] bitmaps : attributeBitmaps) {
+                for (RoaringBitmap bitmap : bitmaps) {
+                    sizeInBytes += bitmap.getLongSizeInBytes();
+                }
+            }
+            return sizeInBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(List<Long> ids, List<BuddyIndexEntry> entries) {
+        lock.writeLock().lock();
+        try {
+            for (long id : ids) {
+                if (writtenDuringRebuild != null) {
+                    writtenDuringRebuild.add(toIndexId(id));
+                }
+                removeFromAll(toIndexId(id));
+            }
+            entries.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Must hold the write lock.
+    private void put(BuddyIndexEntry entry) {
+        int id = toIndexId(entry.id());
+        removeFromAll(id);
+        users.add(id);
+        if (entry.servers() != null) {
+            entry.servers().forEach(server -> byServer[server.ordinal()].add(id));
+        }
+        if (entry.favoritePosition() != null) {
+            byPosition[entry.favoritePosition().ordinal()].add(id);
+        }
+        if (entry.playerType() != null) {
+            byPlayerType[entry.playerType().ordinal()].add(id);
+        }
+        int winRateBucket = toWinRateBucket(entry.winRate());
+        byWinRate[winRateBucket].add(id);
+        byWinRateTens[winRateBucket / WIN_RATE_BUCKETS_PER_TENS].add(id);
+        if (entry.favoriteChampion() != null) {
+            championCatalog.find(entry.favoriteChampion())
+                    .map(Champion::id)
+                    .ifPresent(championId -> byChampion[championId].add(id));
+        }
+        profiles.put(id, entry);
+    }
+
+    // Must hold the write lock. A user is in few bitmaps, but checking all of them is cheaper than tracking which.
+    private void removeFromAll(int id) {
+        if (!users.checkedRemove(id)) {
+            return;
+        }
+        profiles.remove(id);
+        for (RoaringBitmap[] bitmaps : attributeBitmaps) {
+            for (RoaringBitmap bitmap : bitmaps) {
+                bitmap.remove(id);
+            }
+        }
+    }
+
+    // Must hold the write lock. Turns long runs of consecutive ids into run containers after a bulk load.
+    private void optimize() {
+        users.runOptimize();
+        for (RoaringBitmap[] bitmaps : attributeBitmaps) {
+            for (RoaringBitmap bitmap : bitmaps) {
+                bitmap.runOptimize();
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
+
+    // Ids come from a sequence starting at 1, so they fit the 32 bit values of a Roaring bitmap.
+    private static int toIndexId(long id) {
+        return Math.toIntExact(id);
+    }
+
+    private static int toWinRateBucket(float winRate) {
+        return Math.max(0, Math.min(WIN_RATE_BUCKETS - 1, (int) winRate));
+    }
+
+    private static RoaringBitmap[] newBitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+}
@@ -0,0 +1,24 @@
+package com.league_buddies.backend.user;
+
+import java.util.Set;
+
+// The attributes of a user held by BuddyBitmapIndex, read without loading the entity.
+public record BuddyIndexEntry(
+        long id,
+        Set<Server> servers,
+        Position favoritePosition,
+        PlayerType playerType,
+        float winRate,
+        String favoriteChampion
+) {
+    public static BuddyIndexEntry of(User user) {
+        return new BuddyIndexEntry(
+                user.getId(),
+                user.getServers(),
+                user.getFavoritePosition(),
+                user.getPlayerType(),
+                user.getWinRate(),
+                user.getFavoriteChampion()
+        );
+    }
+}
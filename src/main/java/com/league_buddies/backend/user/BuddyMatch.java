@@ -0,0 +1,3 @@
+package com.league_buddies.backend.user;
+
+public record BuddyMatch(UserDTO user, int score) { }
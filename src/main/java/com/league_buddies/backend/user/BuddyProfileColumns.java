@@ -0,0 +1,243 @@
+package com.league_buddies.backend.user;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The match attributes of the indexed users stored column by column in arrays indexed by user id, about 11 bytes
+ * per id. A scan for the best matches reads the columns sequentially, and ranges of ids are scored in parallel on the
+ * common fork join pool. Not thread safe, {@link BuddyBitmapIndex} guards it with its lock.
+ */
+class BuddyProfileColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Ranges with fewer ids are scanned by a single task.
+    private static final int SCAN_SPLIT_THRESHOLD = 1 << 15;
+
+    private boolean[] present = new boolean[INITIAL_CAPACITY];
+
+    private int[] servers = new int[INITIAL_CAPACITY];
+
+    private byte[] positions = new byte[INITIAL_CAPACITY];
+
+    private byte[] playerTypes = new byte[INITIAL_CAPACITY];
+
+    private float[] winRates = new float[INITIAL_CAPACITY];
+
+    // One past the highest id stored so far.
+    private int limit;
+
+    void put(int id, BuddyIndexEntry entry) {
+        ensureCapacity(id + 1);
+        present[id] = true;
+        servers[id] = ServerSetConverter.toBitmask(entry.servers());
+        positions[id] = CompatibilityScorer.encode(entry.favoritePosition());
+        playerTypes[id] = CompatibilityScorer.encode(entry.playerType());
+        winRates[id] = entry.winRate();
+        limit = Math.max(limit, id + 1);
+    }
+
+    void remove(int id) {
+        if (id < limit) {
+            present[id] = false;
+        }
+    }
+
+    // The exact win rate of a stored user.
+    float winRate(int id) {
+        return winRates[id];
+    }
+
+    /**
+     * @return the k users that fit the profile best, best first. Users sharing no server with the profile are
+     * skipped unless the profile has no servers. Equal scores are ordered by id.
+     */
+    List<BuddyScore> topMatches(BuddyIndexEntry profile, int k) {
+        ScanTask scan = new ScanTask(
+                1,
+                limit,
+                k,
+                profile.id(),
+                ServerSetConverter.toBitmask(profile.servers()),
+                CompatibilityScorer.encode(profile.favoritePosition()),
+                CompatibilityScorer.encode(profile.playerType()),
+                profile.winRate()
+        );
+        return ForkJoinPool.commonPool().invoke(scan).toBuddyScores();
+    }
+
+    long sizeInBytes() {
+        return (long) present.length * (1 + Integer.BYTES + 1 + 1 + Float.BYTES);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= present.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, present.length * 2);
+        present = Arrays.copyOf(present, newCapacity);
+        servers = Arrays.copyOf(servers, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        playerTypes = Arrays.copyOf(playerTypes, newCapacity);
+        winRates = Arrays.copyOf(winRates, newCapacity);
+    }
+
+    private class ScanTask extends RecursiveTask<TopScores> {
+        private final int from;
+
+        private final int to;
+
+        private final int k;
+
+        private final long excludedId;
+
+        private final int profileServers;
+
+        private final byte profilePosition;
+
+        private final byte profilePlayerType;
+
+        private final float profileWinRate;
+
+        ScanTask(
+                int from,
+                int to,
+                int k,
+                long excludedId,
+                int profileServers,
+                byte profilePosition,
+                byte profilePlayerType,
+                float profileWinRate
+        ) {
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.excludedId = excludedId;
+            this.profileServers = profileServers;
+            this.profilePosition = profilePosition;
+            this.profilePlayerType = profilePlayerType;
+            this.profileWinRate = profileWinRate;
+        }
+
+        @Override
+        protected TopScores compute() {
+            if (to - from <= SCAN_SPLIT_THRESHOLD) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = split(from, middle);
+            left.fork();
+            TopScores top = split(middle, to).compute();
+            top.addAll(left.join());
+            return top;
+        }
+
+        private ScanTask split(int splitFrom, int splitTo) {
+            return new ScanTask(
+                    splitFrom,
+                    splitTo,
+                    k,
+                    excludedId,
+                    profileServers,
+                    profilePosition,
+                    profilePlayerType,
+                    profileWinRate
+            );
+        }
+
+        private TopScores scan() {
+            TopScores top = new TopScores(k);
+            for (int id = from; id < to; id++) {
+                if (!present[id] || id == excludedId || (profileServers != 0 && (servers[id] & profileServers) == 0)) {
+                    continue;
+                }
+                top.add(id, CompatibilityScorer.score(
+                        profileServers,
+                        profilePosition,
+                        profilePlayerType,
+                        profileWinRate,
+                        servers[id],
+                        positions[id],
+                        playerTypes[id],
+                        winRates[id]
+                ));
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Bounded min heap of the best k scores. Score and id are packed into one long, score in the high half and the
+     * inverted id in the low half, so that a larger key is a better match and adding a candidate does not allocate.
+     */
+    private static class TopScores {
+        private final long[] heap;
+
+        private int size;
+
+        TopScores(int k) {
+            this.heap = new long[k];
+        }
+
+        void add(int id, int score) {
+            long key = ((long) score << 32) | (Integer.MAX_VALUE - id);
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(0);
+            }
+        }
+
+        void addAll(TopScores other) {
+            for (int i = 0; i < other.size; i++) {
+                long key = other.heap[i];
+                add(Integer.MAX_VALUE - (int) key, (int) (key >>> 32));
+            }
+        }
+
+        List<BuddyScore> toBuddyScores() {
+            long[] keys = Arrays.copyOf(heap, size);
+            Arrays.sort(keys);
+            List<BuddyScore> scores = new ArrayList<>(size);
+            for (int i = keys.length - 1; i >= 0; i--) {
+                scores.add(new BuddyScore(Integer.MAX_VALUE - (int) keys[i], (int) (keys[i] >>> 32)));
+            }
+            return scores;
+        }
+
+        private void siftUp(int index) {
+            long key = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] <= key) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = key;
+        }
+
+        private void siftDown(int index) {
+            long key = heap[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (key <= heap[child]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = key;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.league_buddies.backend.user;
+
+import java.util.Set;
+
+// Every filter is optional. Servers match if the user plays on any of them.
+public record BuddySearchCriteria(
+        Set<Server> servers,
+        Position favoritePosition,
+        PlayerType playerType,
+        Float minWinRate,
+        Float maxWinRate,
+        String favoriteChampion
+) {
+    public BuddySearchCriteria(
+            Set<Server> servers,
+            Position favoritePosition,
+            PlayerType playerType,
+            Float minWinRate,
+            Float maxWinRate
+    ) {
+        this(servers, favoritePosition, playerType, minWinRate, maxWinRate, null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.league_buddies.backend.user;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position of the last user on a search page in the (winRate desc, id desc) order. It is handed to clients as an
+ * opaque string. The win rate is kept as its exact float bits so that the next page starts exactly after this row.
+ */
+public record BuddySearchCursor(float winRate, long id) {
+    private static final int ENCODED_LENGTH = Integer.BYTES + Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_LENGTH)
+                .putInt(Float.floatToIntBits(winRate))
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws java.lang.IllegalArgumentException if the cursor was not created by {@link #encode()}.
+     */
+    public static BuddySearchCursor decode(String cursor) {
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != ENCODED_LENGTH) {
+            throw new java.lang.IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new BuddySearchCursor(Float.intBitsToFloat(buffer.getInt()), buffer.getLong());
+    }
+}
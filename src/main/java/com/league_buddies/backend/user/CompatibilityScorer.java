@@ -0,0 +1,57 @@
+package com.league_buddies.backend.user;
+
+/**
+ * Scores how well two players fit together. Works on the encoded attributes of {@link BuddyProfileColumns}, so that
+ * scoring a candidate neither allocates nor follows a reference. Higher is better.
+ */
+final class CompatibilityScorer {
+    static final int COMPLEMENTARY_POSITIONS = 40;
+
+    static final int PER_SHARED_SERVER = 10;
+
+    static final int SAME_PLAYER_TYPE = 25;
+
+    // Given in full for the same win rate, and one point less per percent of difference.
+    static final int WIN_RATE_PROXIMITY = 25;
+
+    // Positions are encoded as ordinal + 1, with 0 for no position. ADC pairs with SUPPORT and JUNGLE with MID.
+    // Positions without a complement, like TOP, map to 0, which must not match a candidate without a position.
+    private static final byte[] COMPLEMENTARY_POSITION = new byte[Position.values().length + 1];
+
+    static {
+        pair(Position.ADC, Position.SUPPORT);
+        pair(Position.JUNGLE, Position.MID);
+    }
+
+    private CompatibilityScorer() {
+    }
+
+    static int score(
+            int servers,
+            byte position,
+            byte playerType,
+            float winRate,
+            int candidateServers,
+            byte candidatePosition,
+            byte candidatePlayerType,
+            float candidateWinRate
+    ) {
+        int score = Integer.bitCount(servers & candidateServers) * PER_SHARED_SERVER;
+        if (candidatePosition != 0 && COMPLEMENTARY_POSITION[position] == candidatePosition) {
+            score += COMPLEMENTARY_POSITIONS;
+        }
+        if (playerType != 0 && playerType == candidatePlayerType) {
+            score += SAME_PLAYER_TYPE;
+        }
+        return score + Math.max(0, WIN_RATE_PROXIMITY - (int) Math.abs(winRate - candidateWinRate));
+    }
+
+    static byte encode(Enum<?> value) {
+        return value == null ? 0 : (byte) (value.ordinal() + 1);
+    }
+
+    private static void pair(Position first, Position second) {
+        COMPLEMENTARY_POSITION[encode(first)] = encode(second);
+        COMPLEMENTARY_POSITION[encode(second)] = encode(first);
+    }
+}
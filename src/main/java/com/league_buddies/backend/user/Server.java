@@ -1,5 +1,6 @@
 package com.league_buddies.backend.user;
 
+// The ordinal is the bit used in the stored servers bitmask, see ServerSetConverter. Only add new servers at the end.
 public enum Server {
     NA,
     EUNE,
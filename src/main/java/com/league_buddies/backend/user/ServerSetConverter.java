@@ -0,0 +1,46 @@
+package com.league_buddies.backend.user;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Stores a set of servers as an integer bitmask where bit n is set if the server with ordinal n is in the set.
+ * The column can then be filtered in SQL with bitand, see {@link UserRepository#findPlayingOnAnyServer}.
+ */
+@Converter
+public class ServerSetConverter implements AttributeConverter<Set<Server>, Integer> {
+    private static final Server[] SERVERS = Server.values();
+
+    public static int toBitmask(Set<Server> servers) {
+        int bitmask = 0;
+        if (servers != null) {
+            for (Server server : servers) {
+                bitmask |= 1 << server.ordinal();
+            }
+        }
+        return bitmask;
+    }
+
+    public static Set<Server> fromBitmask(int bitmask) {
+        Set<Server> servers = EnumSet.noneOf(Server.class);
+        for (Server server : SERVERS) {
+            if ((bitmask & (1 << server.ordinal())) != 0) {
+                servers.add(server);
+            }
+        }
+        return servers;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<Server> servers) {
+        return toBitmask(servers);
+    }
+
+    @Override
+    public Set<Server> convertToEntityAttribute(Integer bitmask) {
+        return fromBitmask(bitmask == null ? 0 : bitmask);
+    }
+}
@@ -0,0 +1,31 @@
+package com.league_buddies.backend.user;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position of the last user on a full-text search page in the (rank desc, id desc) order, handed to clients as an
+ * opaque string like {@link BuddySearchCursor}.
+ */
+public record TextSearchCursor(float rank, long id) {
+    private static final int ENCODED_LENGTH = Integer.BYTES + Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_LENGTH)
+                .putInt(Float.floatToIntBits(rank))
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws java.lang.IllegalArgumentException if the cursor was not created by {@link #encode()}.
+     */
+    public static TextSearchCursor decode(String cursor) {
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != ENCODED_LENGTH) {
+            throw new java.lang.IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new TextSearchCursor(Float.intBitsToFloat(buffer.getInt()), buffer.getLong());
+    }
+}
@@ -1,12 +1,20 @@
 package com.league_buddies.backend.user;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.league_buddies.backend.champion.ChampionConverter;
 import com.league_buddies.backend.configuration.SimpleGrantedAuthorityDeserializer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -17,10 +25,27 @@ import java.util.*;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name="user_table")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)
+@Table(name="user_table", uniqueConstraints = {
+        @UniqueConstraint(name = User.EMAIL_ADDRESS_CONSTRAINT, columnNames = {"emailAddress"})
+})
 public class User implements UserDetails {
+    public static final String EMAIL_ADDRESS_CONSTRAINT = "ux_user_table_email_address";
+
+    // Second-level cache regions of users by id and of ids by email address, see PersistenceConfiguration.
+    public static final String CACHE_REGION = "user";
+
+    public static final String NATURAL_ID_CACHE_REGION = "user-natural-id";
+
+    // Matches the increment of the existing sequence and the JDBC batch size, so one sequence call covers a batch.
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_table_seq")
+    @SequenceGenerator(name = "user_table_seq", sequenceName = "user_table_seq", allocationSize = ID_ALLOCATION_SIZE)
     private long id;
 
     private String displayName;
@@ -28,6 +53,8 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String password;
 
+    // Looked up through the natural id cache. It can change, so Hibernate checks it on flush and updates the cache.
+    @NaturalId(mutable = true)
     @Column(nullable = false)
     private String emailAddress;
 
@@ -35,6 +62,9 @@ public class User implements UserDetails {
 
     private Position favoritePosition;
 
+    // Stored as the id of the champion in the catalog. Loaded users share the name instance of the catalog.
+    @Convert(converter = ChampionConverter.class)
+    @Column(name = "favorite_champion_id")
     private String favoriteChampion;
 
     private String description;
@@ -48,13 +78,42 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role = Role.USER;
 
+    @Convert(converter = ServerSetConverter.class)
+    @Column(name = "servers_bitmask")
     private Set<Server> servers;
 
+    // Incremented by Hibernate on every update. Updates of a stale copy fail instead of overwriting newer changes.
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Incremented whenever previously issued tokens must stop working, e.g. when the role changes.
+    @Column(nullable = false)
+    private int tokenVersion;
+
     public User(String emailAddress, String password) {
-        this.emailAddress = emailAddress;
+        this.emailAddress = normalizeEmailAddress(emailAddress);
         this.password = password;
     }
 
+    /**
+     * Email addresses are stored trimmed and in lowercase so that the unique index on email_address is
+     * case-insensitive and lookups can use it with a plain equality.
+     */
+    public static String normalizeEmailAddress(String emailAddress) {
+        return emailAddress == null ? null : emailAddress.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return whether the exception was caused by the unique constraint on the email address, rather than by another
+     * constraint or a value that does not fit its column.
+     */
+    public static boolean isEmailAddressConflict(DataIntegrityViolationException exception) {
+        return exception.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(EMAIL_ADDRESS_CONSTRAINT);
+    }
+
     public void setDisplayName(String displayName) {
         if (displayName != null && !displayName.isEmpty()) {
             this.displayName = displayName;
@@ -120,7 +179,7 @@ public class User implements UserDetails {
 
     public void setEmailAddress(String emailAddress) {
         if (emailAddress != null && !emailAddress.isEmpty()) {
-            this.emailAddress = emailAddress;
+            this.emailAddress = normalizeEmailAddress(emailAddress);
         }
     }
 
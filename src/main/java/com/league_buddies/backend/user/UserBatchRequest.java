@@ -0,0 +1,6 @@
+package com.league_buddies.backend.user;
+
+import java.util.List;
+
+// Either list may be left out. Together they hold at most 100 entries.
+public record UserBatchRequest(List<Long> ids, List<String> emailAddresses) { }
@@ -0,0 +1,6 @@
+package com.league_buddies.backend.user;
+
+import java.util.Map;
+
+// Has an entry for every requested id and email address, in request order. Users that were not found map to null.
+public record UserBatchResult(Map<Long, UserDTO> byId, Map<String, UserDTO> byEmailAddress) { }
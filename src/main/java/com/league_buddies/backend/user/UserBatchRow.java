@@ -0,0 +1,31 @@
+package com.league_buddies.backend.user;
+
+import java.util.Set;
+
+// A public profile with the email address it can be requested by, see UserRepository#findUserBatchRows.
+record UserBatchRow(String emailAddress, UserDTO user) {
+    UserBatchRow(
+            String emailAddress,
+            long id,
+            String displayName,
+            String leagueOfLegendsUserName,
+            Position favoritePosition,
+            String favoriteChampion,
+            String description,
+            PlayerType playerType,
+            Double winRate,
+            Set<Server> servers
+    ) {
+        this(emailAddress, new UserDTO(
+                id,
+                displayName,
+                leagueOfLegendsUserName,
+                favoritePosition,
+                favoriteChampion,
+                description,
+                playerType,
+                winRate,
+                servers
+        ));
+    }
+}
@@ -1,28 +1,135 @@
 package com.league_buddies.backend.user;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/v1/user")
 @RequiredArgsConstructor
 public class UserController {
+    public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     private final UserService userService;
 
+    // Written straight to the response stream on the request thread, like the export.
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public void listUsers(
+            @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+            @RequestParam(value = "size", defaultValue = "1000") int size,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        userService.listUsers(afterId, size, response.getOutputStream());
+    }
+
+    // The ETag is the version of the user. A revalidation is answered from the version alone, without reading the
+    // profile or writing a body.
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable("id") long id) {
-        return ResponseEntity.ok(createUserDTO(userService.findById(id)));
+    public ResponseEntity<UserDTO> getUserById(@PathVariable("id") long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(eTag(userService.findVersionById(id)))) {
+            return null;
+        }
+        VersionedUserDTO user = userService.findVersionedUserDTOById(id);
+        return ResponseEntity.ok().eTag(eTag(user.version())).body(user.user());
     }
 
     @GetMapping("/username/{username}")
     public ResponseEntity<UserDTO> getUserByUsername(@PathVariable("username") String username) {
-        return ResponseEntity.ok(createUserDTO(userService.findByEmailAddress(username)));
+        return ResponseEntity.ok(userService.findUserDTOByEmailAddress(username));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<UserBatchResult> getUsers(@RequestBody UserBatchRequest request) {
+        return ResponseEntity.ok(userService.findUserDTOs(request));
+    }
+
+    @GetMapping("/{id}/matches")
+    public ResponseEntity<List<BuddyMatch>> getMatches(
+            @PathVariable("id") long id,
+            @RequestParam(value = "k", defaultValue = "20") int k
+    ) {
+        return ResponseEntity.ok(userService.findMatches(id, k));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<UserSearchPage> searchUsers(
+            @RequestParam(value = "servers", required = false) Set<Server> servers,
+            @RequestParam(value = "favoritePosition", required = false) Position favoritePosition,
+            @RequestParam(value = "playerType", required = false) PlayerType playerType,
+            @RequestParam(value = "minWinRate", required = false) Float minWinRate,
+            @RequestParam(value = "maxWinRate", required = false) Float maxWinRate,
+            @RequestParam(value = "favoriteChampion", required = false) String favoriteChampion,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        BuddySearchCriteria criteria = new BuddySearchCriteria(
+                servers, favoritePosition, playerType, minWinRate, maxWinRate, favoriteChampion
+        );
+        return ResponseEntity.ok(userService.searchUsers(criteria, cursor, size));
+    }
+
+    @GetMapping("/search/text")
+    public ResponseEntity<UserSearchPage> searchUsersByText(
+            @RequestParam("q") String text,
+            @RequestParam(value = "servers", required = false) Set<Server> servers,
+            @RequestParam(value = "favoritePosition", required = false) Position favoritePosition,
+            @RequestParam(value = "playerType", required = false) PlayerType playerType,
+            @RequestParam(value = "minWinRate", required = false) Float minWinRate,
+            @RequestParam(value = "maxWinRate", required = false) Float maxWinRate,
+            @RequestParam(value = "favoriteChampion", required = false) String favoriteChampion,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        BuddySearchCriteria criteria = new BuddySearchCriteria(
+                servers, favoritePosition, playerType, minWinRate, maxWinRate, favoriteChampion
+        );
+        return ResponseEntity.ok(userService.searchUsersByText(text, criteria, cursor, size));
+    }
+
+    @GetMapping("/search/count")
+    public ResponseEntity<Long> countBuddies(
+            @RequestParam(value = "servers", required = false) Set<Server> servers,
+            @RequestParam(value = "favoritePosition", required = false) Position favoritePosition,
+            @RequestParam(value = "playerType", required = false) PlayerType playerType,
+            @RequestParam(value = "minWinRate", required = false) Float minWinRate,
+            @RequestParam(value = "maxWinRate", required = false) Float maxWinRate,
+            @RequestParam(value = "favoriteChampion", required = false) String favoriteChampion
+    ) {
+        BuddySearchCriteria criteria = new BuddySearchCriteria(
+                servers, favoritePosition, playerType, minWinRate, maxWinRate, favoriteChampion
+        );
+        return ResponseEntity.ok(userService.countBuddies(criteria));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<UserDTO> updateUser(@PathVariable("id") long id, @RequestBody User user) {
-        return ResponseEntity.ok(createUserDTO(userService.updateUser(id, user)));
+    public ResponseEntity<UserDTO> updateUser(
+            @PathVariable("id") long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody User user
+    ) {
+        User updatedUser = userService.updateUser(id, user, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(updatedUser.getVersion())).body(createUserDTO(updatedUser));
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<UserDTO> patchUser(
+            @PathVariable("id") long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch
+    ) {
+        User patchedUser = userService.patchUser(id, patch, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(patchedUser.getVersion())).body(createUserDTO(patchedUser));
     }
 
     @DeleteMapping("/{id}")
@@ -30,8 +137,32 @@ public class UserController {
         return ResponseEntity.ok(userService.deleteUser(id));
     }
 
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @return the version in an If-Match ETag, null if there is no precondition, and -1, which no user has, for a
+     * header that is not a single strong ETag of a version.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.length() < 2 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+        } catch (NumberFormatException exception) {
+            return -1L;
+        }
+    }
+
     private UserDTO createUserDTO(User user) {
         return UserDTO.builder()
+                .id(user.getId())
                 .displayName(user.getDisplayName())
                 .leagueOfLegendsUserName(user.getLeagueOfLegendsUserName())
                 .playerType(user.getPlayerType())
@@ -0,0 +1,93 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.champion.ChampionCatalog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Reads public profiles in id order from a forward-only JDBC cursor, for responses that are written while the rows
+ * are read. Only one fetch of rows is held at a time, so memory does not depend on how many users are read.
+ * PostgreSQL only fetches in chunks inside a transaction, which is why every read runs in a read-only one.
+ */
+@Repository
+public class UserCursorRepository {
+    private static final Position[] POSITIONS = Position.values();
+
+    private static final PlayerType[] PLAYER_TYPES = PlayerType.values();
+
+    private static final String SELECT_AFTER_ID = "select id, display_name, league_of_legends_user_name, "
+            + "favorite_position, favorite_champion_id, description, player_type, win_rate, servers_bitmask "
+            + "from user_table where id > ? order by id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ChampionCatalog championCatalog;
+
+    public UserCursorRepository(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            ChampionCatalog championCatalog,
+            @Value("${userCursor.fetchSize:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.championCatalog = championCatalog;
+    }
+
+    /**
+     * Passes at most limit users with an id greater than afterId to the consumer, one at a time and in id order.
+     * The cursor stays open until the consumer has taken the last user.
+     */
+    public void forEachUserDTO(long afterId, long limit, Consumer<UserDTO> consumer) {
+        forEachUserDTO(SELECT_AFTER_ID + " fetch first ? rows only", consumer, afterId, limit);
+    }
+
+    /**
+     * Passes every user to the consumer, one at a time and in id order.
+     */
+    public void forEachUserDTO(Consumer<UserDTO> consumer) {
+        forEachUserDTO(SELECT_AFTER_ID, consumer, 0L);
+    }
+
+    private void forEachUserDTO(String sql, Consumer<UserDTO> consumer, Object... arguments) {
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                sql,
+                resultSet -> {
+                    consumer.accept(toUserDTO(resultSet));
+                },
+                arguments
+        ));
+    }
+
+    private UserDTO toUserDTO(ResultSet resultSet) throws SQLException {
+        short favoritePosition = resultSet.getShort("favorite_position");
+        boolean noFavoritePosition = resultSet.wasNull();
+        short favoriteChampion = resultSet.getShort("favorite_champion_id");
+        boolean noFavoriteChampion = resultSet.wasNull();
+        short playerType = resultSet.getShort("player_type");
+        boolean noPlayerType = resultSet.wasNull();
+        return new UserDTO(
+                resultSet.getLong("id"),
+                resultSet.getString("display_name"),
+                resultSet.getString("league_of_legends_user_name"),
+                noFavoritePosition ? null : POSITIONS[favoritePosition],
+                noFavoriteChampion ? null : championCatalog.nameOf(favoriteChampion),
+                resultSet.getString("description"),
+                noPlayerType ? null : PLAYER_TYPES[playerType],
+                resultSet.getFloat("win_rate"),
+                ServerSetConverter.fromBitmask(resultSet.getInt("servers_bitmask"))
+        );
+    }
+}
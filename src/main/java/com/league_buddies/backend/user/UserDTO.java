@@ -6,6 +6,7 @@ import java.util.Set;
 
 @Builder
 public record UserDTO (
+        long id,
         String displayName,
         String leagueOfLegendsUserName,
         Position favoritePosition,
@@ -0,0 +1,65 @@
+package com.league_buddies.backend.user;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes users to a stream while they are read from a {@link UserCursorRepository}, so that the heap used does not
+ * depend on the number of users. The users are passed in by forEachUser, e.g.
+ * {@code consumer -> userCursorRepository.forEachUserDTO(consumer)}.
+ */
+public class UserDTOStreamWriter {
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter userDTOWriter;
+
+    public UserDTOStreamWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Streamed users are flushed by the output buffer rather than one by one.
+        this.userDTOWriter = objectMapper.writerFor(UserDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // The users as one JSON array.
+    public void writeJsonArray(OutputStream outputStream, Consumer<Consumer<UserDTO>> forEachUser) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartArray();
+            writeEach(generator, forEachUser, false);
+            generator.writeEndArray();
+        }
+    }
+
+    // The users as NDJSON, one user per line.
+    public void writeNdjson(OutputStream outputStream, Consumer<Consumer<UserDTO>> forEachUser) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            // Every line ends with a newline, so the default space between root values is not wanted.
+            generator.setRootValueSeparator(null);
+            writeEach(generator, forEachUser, true);
+        }
+    }
+
+    private void writeEach(JsonGenerator generator, Consumer<Consumer<UserDTO>> forEachUser, boolean endLines)
+            throws IOException {
+        try {
+            forEachUser.accept(user -> {
+                try {
+                    userDTOWriter.writeValue(generator, user);
+                    if (endLines) {
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+}
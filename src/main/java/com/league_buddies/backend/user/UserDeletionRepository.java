@@ -0,0 +1,16 @@
+package com.league_buddies.backend.user;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Deletes of many users that report which of them existed, without reading them first.
+ */
+public interface UserDeletionRepository {
+    /**
+     * Deletes the users with one DELETE statement.
+     *
+     * @return the ids of the users that were deleted, which leaves out the ids that did not exist.
+     */
+    List<Long> deleteUsersByIdInReturningIds(Collection<Long> ids);
+}
@@ -0,0 +1,76 @@
+package com.league_buddies.backend.user;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Cache;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The DELETE hands back the ids and email addresses of the deleted rows, with RETURNING on Postgres and as a data
+ * change delta table on the embedded database, so the caller learns which users existed from the same statement.
+ * Hibernate does not know about the deleted rows, so only their entries are evicted from the second-level cache, and
+ * the other cached users stay cached.
+ */
+class UserDeletionRepositoryImpl implements UserDeletionRepository {
+    private static final String DELETE = "delete from user_table where id in (:ids)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<Long> deleteUsersByIdInReturningIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = isPostgres()
+                ? DELETE + " returning id, email_address"
+                : "select id, email_address from old table (" + DELETE + ")";
+        List<Object[]> deletedRows = entityManager.createNativeQuery(sql)
+                .setParameter("ids", ids)
+                .getResultList();
+        List<Long> deletedIds = deletedRows.stream().map(row -> ((Number) row[0]).longValue()).toList();
+        evictAfterCompletion(deletedIds, deletedRows.stream().map(row -> (String) row[1]).toList());
+        return deletedIds;
+    }
+
+    // The cache keys of the natural ids need the session, so they are made now. The entries are evicted once the
+    // transaction is over, so a concurrent read cannot put a deleted user back before the delete is committed.
+    private void evictAfterCompletion(List<Long> ids, List<String> emailAddresses) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory()
+                .getRuntimeMetamodels()
+                .getMappingMetamodel()
+                .getEntityDescriptor(User.class);
+        NaturalIdDataAccess naturalIdCache = persister.getNaturalIdCacheAccessStrategy();
+        List<Object> naturalIdKeys = emailAddresses.stream()
+                .map(emailAddress -> naturalIdCache.generateCacheKey(emailAddress, persister, session))
+                .toList();
+        Cache cache = session.getFactory().getCache();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ids.forEach(id -> cache.evictEntityData(User.class, id));
+                naturalIdKeys.forEach(naturalIdCache::evict);
+            }
+        });
+    }
+
+    private boolean isPostgres() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+    }
+}
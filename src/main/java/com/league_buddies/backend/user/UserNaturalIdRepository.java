@@ -0,0 +1,14 @@
+package com.league_buddies.backend.user;
+
+import java.util.Optional;
+
+/**
+ * Lookups of users by their natural id, the email address, through the second-level cache.
+ */
+public interface UserNaturalIdRepository {
+    /**
+     * Expects an already normalized address. Callers should use {@link UserRepository#findByEmailAddress}, which
+     * normalizes the input.
+     */
+    Optional<User> findByNormalizedEmailAddress(String emailAddress);
+}
@@ -0,0 +1,26 @@
+package com.league_buddies.backend.user;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Resolves the email address to an id through the natural id cache and then loads the user through the entity
+ * cache, so a user that was read or written recently is found without any SQL. Unlike a query on the email address,
+ * a lookup by natural id does not flush the persistence context first.
+ */
+class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByNormalizedEmailAddress(String emailAddress) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(emailAddress);
+    }
+}
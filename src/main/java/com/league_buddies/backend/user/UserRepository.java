@@ -1,11 +1,88 @@
 package com.league_buddies.backend.user;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    public Optional<User> findByEmailAddress(String username);
+public interface UserRepository extends JpaRepository<User, Long>, UserSearchRepository, UserNaturalIdRepository,
+        UserDeletionRepository {
+    // Selects only the public profile columns straight into UserDTO. No entity is managed, so there is no
+    // dirty checking snapshot, and the password hash and role never leave the database.
+    String USER_DTO_SELECT = "select new com.league_buddies.backend.user.UserDTO("
+            + "u.id, u.displayName, u.leagueOfLegendsUserName, u.favoritePosition, u.favoriteChampion, u.description, "
+            + "u.playerType, cast(u.winRate as Double), u.servers) from User u ";
+
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_SELECT + "where u.id = :id")
+    public Optional<UserDTO> findUserDTOById(@Param("id") long id);
+
+    @Transactional(readOnly = true)
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    public Optional<Integer> findTokenVersionById(@Param("id") long id);
+
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_SELECT + "where u.id in :ids")
+    public List<UserDTO> findUserDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // One IN query for a whole batch, served by the primary key and the unique email index. Expects normalized
+    // addresses.
+    @Transactional(readOnly = true)
+    @Query("select new com.league_buddies.backend.user.UserBatchRow(u.emailAddress, "
+            + "u.id, u.displayName, u.leagueOfLegendsUserName, u.favoritePosition, u.favoriteChampion, u.description, "
+            + "u.playerType, cast(u.winRate as Double), u.servers) from User u "
+            + "where u.id in :ids or u.emailAddress in :emailAddresses")
+    public List<UserBatchRow> findUserBatchRows(
+            @Param("ids") Collection<Long> ids,
+            @Param("emailAddresses") Collection<String> emailAddresses
+    );
+
+    @Transactional(readOnly = true)
+    @Query(USER_DTO_SELECT + "where u.emailAddress = :emailAddress")
+    public Optional<UserDTO> findUserDTOByNormalizedEmailAddress(@Param("emailAddress") String emailAddress);
+
+    public default Optional<UserDTO> findUserDTOByEmailAddress(String username) {
+        return findUserDTOByNormalizedEmailAddress(User.normalizeEmailAddress(username));
+    }
+
+    public default Optional<User> findByEmailAddress(String username) {
+        return findByNormalizedEmailAddress(User.normalizeEmailAddress(username));
+    }
+
+    @Query("select u.emailAddress from User u where u.emailAddress in :emailAddresses")
+    public Set<String> findExistingEmailAddresses(@Param("emailAddresses") Collection<String> emailAddresses);
+
+    // The servers column is a bitmask built by ServerSetConverter, so these filter with a bitwise and in the database.
+    // Ordered by id, so that the pages are stable and do not skip or repeat users.
+    @Query("select u from User u where bitand(cast(u.servers as Integer), cast(:serversBitmask as Integer)) <> 0 "
+            + "order by u.id")
+    public List<User> findPlayingOnAnyServerBitmask(@Param("serversBitmask") int serversBitmask, Pageable pageable);
+
+    @Query("select u from User u "
+            + "where bitand(cast(u.servers as Integer), cast(:serversBitmask as Integer)) = :serversBitmask "
+            + "order by u.id")
+    public List<User> findPlayingOnAllServersBitmask(@Param("serversBitmask") int serversBitmask, Pageable pageable);
+
+    public default List<User> findPlayingOnAnyServer(Set<Server> servers, Pageable pageable) {
+        return findPlayingOnAnyServerBitmask(ServerSetConverter.toBitmask(servers), pageable);
+    }
+
+    public default List<User> findPlayingOnAllServers(Set<Server> servers, Pageable pageable) {
+        return findPlayingOnAllServersBitmask(ServerSetConverter.toBitmask(servers), pageable);
+    }
+
+    // Pages through every user by id to build BuddyBitmapIndex.
+    @Transactional(readOnly = true)
+    @Query("select new com.league_buddies.backend.user.BuddyIndexEntry("
+            + "u.id, u.servers, u.favoritePosition, u.playerType, u.winRate, u.favoriteChampion) from User u "
+            + "where u.id > :afterId order by u.id")
+    public List<BuddyIndexEntry> findBuddyIndexEntries(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,6 @@
+package com.league_buddies.backend.user;
+
+import java.util.List;
+
+// nextCursor is null on the last page.
+public record UserSearchPage(List<UserDTO> users, String nextCursor) { }
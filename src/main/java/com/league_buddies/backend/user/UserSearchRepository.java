@@ -0,0 +1,19 @@
+package com.league_buddies.backend.user;
+
+import java.util.List;
+
+public interface UserSearchRepository {
+    /**
+     * Returns up to {@code limit} users matching the criteria ordered by win rate and then id, both descending,
+     * starting after the cursor. The cursor may be null for the first page.
+     */
+    List<UserDTO> searchUsers(BuddySearchCriteria criteria, BuddySearchCursor after, int limit);
+
+    /**
+     * Returns up to {@code limit} users whose names, favorite champion or description match the text and the
+     * criteria, best match first and then by id descending, starting after the cursor. On Postgres the text is
+     * parsed as a web search query and ranked against the search_vector column. Other databases match every word
+     * of the text as a case-insensitive substring and give all users the same rank.
+     */
+    List<TextSearchHit> searchUsersByText(String text, BuddySearchCriteria criteria, TextSearchCursor after, int limit);
+}
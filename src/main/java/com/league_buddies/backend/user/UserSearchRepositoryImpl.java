@@ -0,0 +1,291 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.champion.Champion;
+import com.league_buddies.backend.champion.ChampionCatalog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Buddy search with keyset pagination. Only the filters that are set become predicates, so the query matches the
+ * composite indexes from the V4 migration, and each page seeks past the cursor in the index instead of counting
+ * skipped rows with OFFSET. The cost of a page therefore does not grow with how deep the client has paged.
+ */
+class UserSearchRepositoryImpl implements UserSearchRepository {
+    private static final Position[] POSITIONS = Position.values();
+
+    private static final PlayerType[] PLAYER_TYPES = PlayerType.values();
+
+    // Columns of the full-text search result, in the order mapped by toTextSearchHit.
+    private static final String TEXT_SEARCH_COLUMNS = "id, display_name, league_of_legends_user_name, "
+            + "favorite_position, favorite_champion_id, description, player_type, win_rate, servers_bitmask";
+
+    // Added to the rank of users whose favorite champion is named in the text. It is the default ts_rank weight of
+    // the B label, which the champion had when it was part of search_vector.
+    private static final float CHAMPION_RANK = 0.4F;
+
+    private final ChampionCatalog championCatalog;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    UserSearchRepositoryImpl(ChampionCatalog championCatalog) {
+        this.championCatalog = championCatalog;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDTO> searchUsers(BuddySearchCriteria criteria, BuddySearchCursor after, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserDTO> query = builder.createQuery(UserDTO.class);
+        Root<User> user = query.from(User.class);
+        Expression<Float> winRate = user.get("winRate");
+        Expression<Long> id = user.get("id");
+
+        List<Predicate> predicates = filterPredicates(builder, user, criteria);
+        if (after != null) {
+            // The redundant winRate <= bound gives the database a range to seek to in the index.
+            predicates.add(builder.lessThanOrEqualTo(winRate, after.winRate()));
+            predicates.add(builder.or(
+                    builder.lessThan(winRate, after.winRate()),
+                    builder.lessThan(id, after.id())
+            ));
+        }
+
+        query.select(userDTO(builder, user))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(builder.desc(winRate), builder.desc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TextSearchHit> searchUsersByText(
+            String text,
+            BuddySearchCriteria criteria,
+            TextSearchCursor after,
+            int limit
+    ) {
+        if (isPostgres()) {
+            return searchUsersByTextVector(text, criteria, after, limit);
+        }
+        return searchUsersBySubstring(text, criteria, after, limit);
+    }
+
+    // Ranks with ts_rank, which has to be computed for every match before the best ones are known. The GIN index
+    // finds the matches, and the filters narrow them down before they are ranked. The favorite champion is not part
+    // of search_vector, so a user whose champion is named in the text also matches when the rest of the text does.
+    @SuppressWarnings("unchecked")
+    private List<TextSearchHit> searchUsersByTextVector(
+            String text,
+            BuddySearchCriteria criteria,
+            TextSearchCursor after,
+            int limit
+    ) {
+        List<Short> champions = championCatalog.namedIn(text).stream().map(Champion::id).toList();
+        String textWithoutChampions = championCatalog.withoutChampionNames(text);
+        StringBuilder sql = new StringBuilder("select ").append(TEXT_SEARCH_COLUMNS).append(", rank from (")
+                .append("select ").append(TEXT_SEARCH_COLUMNS).append(", ts_rank(u.search_vector, text_query)");
+        if (!champions.isEmpty()) {
+            // Cast, since a real plus a numeric literal is a double precision, which the float of the cursor
+            // cannot compare equal with.
+            sql.append(" + case when u.favorite_champion_id in (:champions) then cast(").append(CHAMPION_RANK)
+                    .append(" as real) else 0 end");
+        }
+        sql.append(" as rank from user_table u, websearch_to_tsquery('simple', :text) text_query ")
+                .append("where (u.search_vector @@ text_query");
+        if (!champions.isEmpty()) {
+            sql.append(" or u.favorite_champion_id in (:champions)");
+            if (!textWithoutChampions.isEmpty()) {
+                sql.append(" and u.search_vector @@ websearch_to_tsquery('simple', :textWithoutChampions)");
+            }
+        }
+        sql.append(")");
+        if (criteria.favoriteChampion() != null) {
+            sql.append(" and u.favorite_champion_id = :favoriteChampion");
+        }
+        if (criteria.favoritePosition() != null) {
+            sql.append(" and u.favorite_position = :favoritePosition");
+        }
+        if (criteria.playerType() != null) {
+            sql.append(" and u.player_type = :playerType");
+        }
+        if (criteria.minWinRate() != null) {
+            sql.append(" and u.win_rate >= :minWinRate");
+        }
+        if (criteria.maxWinRate() != null) {
+            sql.append(" and u.win_rate <= :maxWinRate");
+        }
+        if (criteria.servers() != null && !criteria.servers().isEmpty()) {
+            sql.append(" and (u.servers_bitmask & :servers) <> 0");
+        }
+        sql.append(") ranked");
+        if (after != null) {
+            sql.append(" where rank < :rank or (rank = :rank and id < :id)");
+        }
+        sql.append(" order by rank desc, id desc limit :limit");
+
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setParameter("text", text)
+                .setParameter("limit", limit);
+        if (!champions.isEmpty()) {
+            query.setParameter("champions", champions);
+            if (!textWithoutChampions.isEmpty()) {
+                query.setParameter("textWithoutChampions", textWithoutChampions);
+            }
+        }
+        if (criteria.favoriteChampion() != null) {
+            query.setParameter("favoriteChampion", championId(criteria.favoriteChampion()));
+        }
+        if (criteria.favoritePosition() != null) {
+            query.setParameter("favoritePosition", (short) criteria.favoritePosition().ordinal());
+        }
+        if (criteria.playerType() != null) {
+            query.setParameter("playerType", (short) criteria.playerType().ordinal());
+        }
+        if (criteria.minWinRate() != null) {
+            query.setParameter("minWinRate", criteria.minWinRate());
+        }
+        if (criteria.maxWinRate() != null) {
+            query.setParameter("maxWinRate", criteria.maxWinRate());
+        }
+        if (criteria.servers() != null && !criteria.servers().isEmpty()) {
+            query.setParameter("servers", ServerSetConverter.toBitmask(criteria.servers()));
+        }
+        if (after != null) {
+            query.setParameter("rank", after.rank());
+            query.setParameter("id", after.id());
+        }
+        return ((List<Object[]>) query.getResultList()).stream()
+                .map(this::toTextSearchHit)
+                .toList();
+    }
+
+    // Every word has to appear in one of the fields, or in the name of the favorite champion. This cannot use an
+    // index, so it is only meant for databases without full-text search, and for comparison with it.
+    private List<TextSearchHit> searchUsersBySubstring(
+            String text,
+            BuddySearchCriteria criteria,
+            TextSearchCursor after,
+            int limit
+    ) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserDTO> query = builder.createQuery(UserDTO.class);
+        Root<User> user = query.from(User.class);
+        Expression<Long> id = user.get("id");
+
+        List<Predicate> predicates = filterPredicates(builder, user, criteria);
+        for (String word : text.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            String pattern = "%" + word.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            List<Predicate> fieldMatches = new ArrayList<>();
+            for (String field : List.of("displayName", "leagueOfLegendsUserName", "description")) {
+                fieldMatches.add(builder.like(builder.lower(user.<String>get(field)), pattern, '\\'));
+            }
+            List<String> champions = championCatalog.nameContaining(word).stream().map(Champion::name).toList();
+            if (!champions.isEmpty()) {
+                fieldMatches.add(user.get("favoriteChampion").in(champions));
+            }
+            predicates.add(builder.or(fieldMatches.toArray(new Predicate[0])));
+        }
+        if (after != null) {
+            predicates.add(builder.lessThan(id, after.id()));
+        }
+
+        query.select(userDTO(builder, user))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(builder.desc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList().stream()
+                .map(userDTO -> new TextSearchHit(userDTO, 0F))
+                .toList();
+    }
+
+    private List<Predicate> filterPredicates(
+            CriteriaBuilder builder,
+            Root<User> user,
+            BuddySearchCriteria criteria
+    ) {
+        Expression<Float> winRate = user.get("winRate");
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.favoriteChampion() != null) {
+            predicates.add(builder.equal(user.get("favoriteChampion"), criteria.favoriteChampion()));
+        }
+        if (criteria.favoritePosition() != null) {
+            predicates.add(builder.equal(user.get("favoritePosition"), criteria.favoritePosition()));
+        }
+        if (criteria.playerType() != null) {
+            predicates.add(builder.equal(user.get("playerType"), criteria.playerType()));
+        }
+        if (criteria.minWinRate() != null) {
+            predicates.add(builder.greaterThanOrEqualTo(winRate, criteria.minWinRate()));
+        }
+        if (criteria.maxWinRate() != null) {
+            predicates.add(builder.lessThanOrEqualTo(winRate, criteria.maxWinRate()));
+        }
+        if (criteria.servers() != null && !criteria.servers().isEmpty()) {
+            // The bitmask cannot be indexed, so this is checked on the rows found through the other predicates.
+            Expression<Integer> servers = builder.function(
+                    "bitand",
+                    Integer.class,
+                    user.get("servers").as(Integer.class),
+                    builder.literal(ServerSetConverter.toBitmask(criteria.servers())).as(Integer.class)
+            );
+            predicates.add(builder.notEqual(servers, 0));
+        }
+        return predicates;
+    }
+
+    private static CompoundSelection<UserDTO> userDTO(CriteriaBuilder builder, Root<User> user) {
+        return builder.construct(
+                UserDTO.class,
+                user.get("id"),
+                user.get("displayName"),
+                user.get("leagueOfLegendsUserName"),
+                user.get("favoritePosition"),
+                user.get("favoriteChampion"),
+                user.get("description"),
+                user.get("playerType"),
+                user.<Float>get("winRate").as(Double.class),
+                user.get("servers")
+        );
+    }
+
+    private TextSearchHit toTextSearchHit(Object[] row) {
+        UserDTO user = new UserDTO(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                (String) row[2],
+                row[3] == null ? null : POSITIONS[((Number) row[3]).intValue()],
+                row[4] == null ? null : championCatalog.nameOf(((Number) row[4]).shortValue()),
+                (String) row[5],
+                row[6] == null ? null : PLAYER_TYPES[((Number) row[6]).intValue()],
+                ((Number) row[7]).doubleValue(),
+                ServerSetConverter.fromBitmask(((Number) row[8]).intValue())
+        );
+        return new TextSearchHit(user, ((Number) row[9]).floatValue());
+    }
+
+    // The service only passes names from the catalog.
+    private short championId(String name) {
+        return championCatalog.find(name).map(Champion::id).orElseThrow();
+    }
+
+    private boolean isPostgres() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+    }
+}
@@ -1,21 +1,116 @@
 package com.league_buddies.backend.user;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.league_buddies.backend.champion.Champion;
+import com.league_buddies.backend.champion.ChampionCatalog;
 import com.league_buddies.backend.exception.IllegalArgumentException;
+import com.league_buddies.backend.exception.PreconditionFailedException;
 import com.league_buddies.backend.exception.UserNotFoundException;
+import com.league_buddies.backend.security.authentication.UserDetailsCache;
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
 import com.league_buddies.backend.util.MessageResolver;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class UserService {
+    // Profile fields a user can change with a patch. Email, password and role have their own rules and are left out.
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "displayName",
+            "leagueOfLegendsUserName",
+            "favoritePosition",
+            "favoriteChampion",
+            "description",
+            "playerType",
+            "winRate",
+            "servers"
+    );
+
+    // Keeps the IN list of a bulk delete well below the bind parameter limits of the database drivers.
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    private static final int MAX_MATCHES = 100;
+
+    private static final int MAX_SEARCH_TEXT_LENGTH = 100;
+
+    private static final int MAX_BATCH_SIZE = 100;
+
+    // Listed users are streamed, so this only bounds how long a single response runs.
+    private static final int MAX_LIST_SIZE = 100_000;
 
     private final UserRepository userRepository;
 
+    private final UserCursorRepository userCursorRepository;
+
     private final MessageResolver messageResolver;
 
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    private final UserDetailsCache userDetailsCache;
+
+    private final BuddyBitmapIndex buddyBitmapIndex;
+
+    private final ChampionCatalog championCatalog;
+
+    private final ObjectReader patchFieldReader;
+
+    private final ObjectReader patchSetterReader;
+
+    private final ObjectMapper objectMapper;
+
+    private final UserDTOStreamWriter userDTOStreamWriter;
+
+    public UserService(
+            UserRepository userRepository,
+            UserCursorRepository userCursorRepository,
+            MessageResolver messageResolver,
+            TokenVersionRegistry tokenVersionRegistry,
+            UserDetailsCache userDetailsCache,
+            BuddyBitmapIndex buddyBitmapIndex,
+            ChampionCatalog championCatalog,
+            ObjectMapper objectMapper
+    ) {
+        this.userRepository = userRepository;
+        this.userCursorRepository = userCursorRepository;
+        this.messageResolver = messageResolver;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userDetailsCache = userDetailsCache;
+        this.buddyBitmapIndex = buddyBitmapIndex;
+        this.championCatalog = championCatalog;
+        // The setters ignore null, but in a merge patch null clears a field, so nulls are written to the fields.
+        this.patchFieldReader = objectMapper.copy()
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .readerFor(User.class);
+        this.patchSetterReader = objectMapper.readerFor(User.class);
+        this.objectMapper = objectMapper;
+        this.userDTOStreamWriter = new UserDTOStreamWriter(objectMapper);
+    }
+
+    @Transactional(readOnly = true)
     public User findById(long id) {
         if (id < 0) {
             throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
@@ -28,6 +123,7 @@ public class UserService {
         }
     }
 
+    @Transactional(readOnly = true)
     public User findByEmailAddress(String username) {
         if (username.isEmpty() || username.isBlank() || username == null) {
             throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
@@ -40,7 +136,227 @@ public class UserService {
         }
     }
 
-    public User updateUser(Long Id, User user) {
+    @Transactional(readOnly = true)
+    public UserDTO findUserDTOById(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        return userRepository.findUserDTOById(id).orElseThrow(
+                () -> new UserNotFoundException(messageResolver.getMessage("userNotFound"))
+        );
+    }
+
+    /**
+     * Built from the user entity, so that repeated reads of a profile are served by the second-level cache.
+     */
+    public VersionedUserDTO findVersionedUserDTOById(long id) {
+        return VersionedUserDTO.of(findById(id));
+    }
+
+    /**
+     * The version of the user alone, to revalidate a cached profile. Read from the second-level cache like
+     * {@link #findVersionedUserDTOById}, so that a revalidation does not cost a query either.
+     */
+    public long findVersionById(long id) {
+        return findById(id).getVersion();
+    }
+
+    @Transactional(readOnly = true)
+    public UserDTO findUserDTOByEmailAddress(String username) {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        return userRepository.findUserDTOByEmailAddress(username).orElseThrow(
+                () -> new UserNotFoundException(messageResolver.getMessage("userNotFound"))
+        );
+    }
+
+    /**
+     * Looks up the profiles of many users by id or email address with a single query, e.g. for the members of a
+     * party. Email addresses are matched like in {@link #findUserDTOByEmailAddress}.
+     */
+    public UserBatchResult findUserDTOs(UserBatchRequest request) {
+        List<Long> ids = request == null || request.ids() == null ? List.of() : request.ids();
+        List<String> emailAddresses = request == null || request.emailAddresses() == null
+                ? List.of()
+                : request.emailAddresses();
+        if (ids.size() + emailAddresses.size() > MAX_BATCH_SIZE
+                || ids.stream().anyMatch(id -> id == null || id < 0)
+                || emailAddresses.stream().anyMatch(emailAddress -> emailAddress == null || emailAddress.isBlank())) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+
+        Map<Long, UserDTO> foundById = new HashMap<>();
+        Map<String, UserDTO> foundByEmailAddress = new HashMap<>();
+        if (!ids.isEmpty() || !emailAddresses.isEmpty()) {
+            List<UserBatchRow> rows = userRepository.findUserBatchRows(
+                    ids,
+                    emailAddresses.stream().map(User::normalizeEmailAddress).toList()
+            );
+            for (UserBatchRow row : rows) {
+                foundById.put(row.user().id(), row.user());
+                foundByEmailAddress.put(row.emailAddress(), row.user());
+            }
+        }
+
+        Map<Long, UserDTO> byId = new LinkedHashMap<>();
+        ids.forEach(id -> byId.put(id, foundById.get(id)));
+        Map<String, UserDTO> byEmailAddress = new LinkedHashMap<>();
+        emailAddresses.forEach(emailAddress -> byEmailAddress.put(
+                emailAddress, foundByEmailAddress.get(User.normalizeEmailAddress(emailAddress))
+        ));
+        return new UserBatchResult(byId, byEmailAddress);
+    }
+
+    /**
+     * Writes up to size users with an id greater than afterId, in id order, as a JSON array while the users are read
+     * from the database. The id of the last user is the afterId of the next page.
+     */
+    public void listUsers(long afterId, int size, OutputStream outputStream) throws IOException {
+        if (afterId < 0 || size < 1 || size > MAX_LIST_SIZE) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        userDTOStreamWriter.writeJsonArray(
+                outputStream, consumer -> userCursorRepository.forEachUserDTO(afterId, size, consumer)
+        );
+    }
+
+    /**
+     * One page of buddies ordered by win rate, best first. Pass the returned cursor to get the next page.
+     */
+    public UserSearchPage searchUsers(BuddySearchCriteria criteria, String cursor, int size) {
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE || hasInvalidWinRateRange(criteria)) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        BuddySearchCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                after = BuddySearchCursor.decode(cursor);
+            } catch (java.lang.IllegalArgumentException exception) {
+                throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+            }
+        }
+
+        // One extra row tells whether there is a next page without a count query.
+        List<UserDTO> users = userRepository.searchUsers(withCatalogChampion(criteria), after, size + 1);
+        if (users.size() <= size) {
+            return new UserSearchPage(users, null);
+        }
+        UserDTO last = users.get(size - 1);
+        return new UserSearchPage(
+                List.copyOf(users.subList(0, size)),
+                new BuddySearchCursor((float) last.winRate(), last.id()).encode()
+        );
+    }
+
+    /**
+     * One page of users whose names, favorite champion or description match the text, best match first.
+     * Pass the returned cursor to get the next page.
+     */
+    public UserSearchPage searchUsersByText(String text, BuddySearchCriteria criteria, String cursor, int size) {
+        if (text == null || text.isBlank() || text.length() > MAX_SEARCH_TEXT_LENGTH
+                || size < 1 || size > MAX_SEARCH_PAGE_SIZE || hasInvalidWinRateRange(criteria)) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        TextSearchCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                after = TextSearchCursor.decode(cursor);
+            } catch (java.lang.IllegalArgumentException exception) {
+                throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+            }
+        }
+
+        List<TextSearchHit> hits = userRepository.searchUsersByText(
+                text, withCatalogChampion(criteria), after, size + 1
+        );
+        List<UserDTO> users = hits.stream().limit(size).map(TextSearchHit::user).toList();
+        if (hits.size() <= size) {
+            return new UserSearchPage(users, null);
+        }
+        TextSearchHit last = hits.get(size - 1);
+        return new UserSearchPage(users, new TextSearchCursor(last.rank(), last.user().id()).encode());
+    }
+
+    /**
+     * Counts the buddies matching the criteria from the in-memory index, without a query.
+     */
+    public long countBuddies(BuddySearchCriteria criteria) {
+        if (hasInvalidWinRateRange(criteria)) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        return buddyBitmapIndex.count(withCatalogChampion(criteria));
+    }
+
+    private static boolean hasInvalidWinRateRange(BuddySearchCriteria criteria) {
+        return criteria.minWinRate() != null && criteria.maxWinRate() != null
+                && criteria.minWinRate() > criteria.maxWinRate();
+    }
+
+    // Replaces the champion filter with the name from the catalog, so that queries compare champion ids.
+    private BuddySearchCriteria withCatalogChampion(BuddySearchCriteria criteria) {
+        if (criteria.favoriteChampion() == null) {
+            return criteria;
+        }
+        return new BuddySearchCriteria(
+                criteria.servers(),
+                criteria.favoritePosition(),
+                criteria.playerType(),
+                criteria.minWinRate(),
+                criteria.maxWinRate(),
+                toCatalogChampion(criteria.favoriteChampion())
+        );
+    }
+
+    /**
+     * @return the name of the champion as spelled in the catalog, or null for a null or empty name.
+     */
+    private String toCatalogChampion(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        return championCatalog.find(name)
+                .map(Champion::name)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        messageResolver.getMessage("unknownChampion", new Object[] {name})
+                ));
+    }
+
+    /**
+     * The k other players that fit the user best, best first. They are ranked from the in-memory index, and only
+     * their profiles are read from the database.
+     */
+    public List<BuddyMatch> findMatches(long id, int k) {
+        if (k < 1 || k > MAX_MATCHES) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        UserDTO user = findUserDTOById(id);
+        List<BuddyScore> scores = buddyBitmapIndex.topMatches(new BuddyIndexEntry(
+                user.id(),
+                user.servers(),
+                user.favoritePosition(),
+                user.playerType(),
+                (float) user.winRate(),
+                user.favoriteChampion()
+        ), k);
+
+        Map<Long, UserDTO> buddies = userRepository.findUserDTOsByIdIn(scores.stream().map(BuddyScore::id).toList())
+                .stream()
+                .collect(Collectors.toMap(UserDTO::id, Function.identity()));
+        // A buddy deleted since it was ranked is left out.
+        return scores.stream()
+                .filter(score -> buddies.containsKey(score.id()))
+                .map(score -> new BuddyMatch(buddies.get(score.id()), score.score()))
+                .toList();
+    }
+
+    /**
+     * Replaces the profile of a user. If expectedVersion is not null the user must still be at that version.
+     * The update is checked against the version of the row, so a concurrent update makes it fail rather than being
+     * overwritten, see {@link User#getVersion()}.
+     */
+    @Transactional
+    public User updateUser(Long Id, User user, Long expectedVersion) {
         if (user == null || Id < 0) {
             throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
         }
@@ -50,36 +366,156 @@ public class UserService {
             throw new UserNotFoundException(messageResolver.getMessage("userNotFound"));
         } else {
             User currUser = optionalUser.get();
+            checkVersion(currUser, expectedVersion);
+            // Evicted under the old email as well in case it changes.
+            String previousEmailAddress = currUser.getEmailAddress();
             currUser.setDisplayName(user.getDisplayName());
             currUser.setEmailAddress(user.getEmailAddress());
             currUser.setPassword(user.getPassword());
             currUser.setLeagueOfLegendsUserName(user.getLeagueOfLegendsUserName());
             currUser.setFavoritePosition(user.getFavoritePosition());
-            currUser.setFavoriteChampion(user.getFavoriteChampion());
+            currUser.setFavoriteChampion(toCatalogChampion(user.getFavoriteChampion()));
             currUser.setDescription(user.getDescription());
             currUser.setPlayerType(user.getPlayerType());
             currUser.setWinRate(user.getWinRate());
+            // Tokens issued with the old role must stop working.
+            boolean roleChanged = user.getRole() != null && user.getRole() != currUser.getRole();
+            if (roleChanged) {
+                currUser.setTokenVersion(currUser.getTokenVersion() + 1);
+            }
             currUser.setRole(user.getRole());
             currUser.setServers(user.getServers());
             userRepository.save(currUser);
+            long id = currUser.getId();
+            int tokenVersion = currUser.getTokenVersion();
+            String emailAddress = currUser.getEmailAddress();
+            afterCommit(() -> {
+                if (roleChanged) {
+                    tokenVersionRegistry.bump(id, tokenVersion);
+                }
+                userDetailsCache.evict(previousEmailAddress);
+                userDetailsCache.evict(emailAddress);
+            });
+            buddyBitmapIndex.index(currUser);
             return currUser;
         }
     }
 
+    /**
+     * Applies a JSON merge patch (RFC 7386) to the profile of a user. Fields missing from the patch are left alone
+     * and null clears a field. User is mapped with @DynamicUpdate, so the UPDATE only contains the changed columns,
+     * and dirty checking skips it altogether when the patch changes nothing. If expectedVersion is not null the user
+     * must still be at that version.
+     */
+    @Transactional
+    public User patchUser(long id, JsonNode patch, Long expectedVersion) {
+        if (id < 0 || patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        for (Iterator<String> fieldNames = patch.fieldNames(); fieldNames.hasNext(); ) {
+            if (!PATCHABLE_FIELDS.contains(fieldNames.next())) {
+                throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+            }
+        }
+
+        User user = userRepository.findById(id).orElseThrow(
+                () -> new UserNotFoundException(messageResolver.getMessage("userNotFound"))
+        );
+        checkVersion(user, expectedVersion);
+        ObjectNode catalogPatch = ((ObjectNode) patch).deepCopy();
+        JsonNode favoriteChampion = catalogPatch.get("favoriteChampion");
+        if (favoriteChampion != null && favoriteChampion.isTextual()) {
+            // Spelled as in the catalog, and an empty name clears the champion like null does.
+            catalogPatch.put("favoriteChampion", toCatalogChampion(favoriteChampion.textValue()));
+        }
+        // Values go through the setters, so they are normalized and checked as in a PUT. Nulls clear the field. The
+        // servers are replaced through the field, because the setter adds to the servers instead of replacing them.
+        ObjectNode fieldPatch = objectMapper.createObjectNode();
+        ObjectNode setterPatch = objectMapper.createObjectNode();
+        catalogPatch.fields().forEachRemaining(field -> {
+            if (field.getValue().isNull() || field.getKey().equals("servers")) {
+                fieldPatch.set(field.getKey(), field.getValue());
+            } else {
+                setterPatch.set(field.getKey(), field.getValue());
+            }
+        });
+        try {
+            patchFieldReader.withValueToUpdate(user).readValue(fieldPatch);
+            patchSetterReader.withValueToUpdate(user).readValue(setterPatch);
+        } catch (IOException exception) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+        String emailAddress = user.getEmailAddress();
+        afterCommit(() -> userDetailsCache.evict(emailAddress));
+        buddyBitmapIndex.index(user);
+        return user;
+    }
+
+    // The caches and the token version registry must only see committed changes. If the commit fails, e.g. because
+    // the version check of the update finds a newer row, they are left alone. Outside a transaction this runs at once.
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void checkVersion(User user, Long expectedVersion) {
+        if (expectedVersion != null && user.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException(messageResolver.getMessage("userModified"));
+        }
+    }
+
+    // The user is removed through the entity manager, so Hibernate evicts only this user from the second-level cache.
+    // Usually it is already cached, and then the delete is the only statement.
+    @Transactional
     public String deleteUser(Long id) {
         if (id < 0) {
             throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
         }
 
-        Optional<User> optionalUser = userRepository.findById(id);
-        if (optionalUser.isEmpty()) {
-            throw new UserNotFoundException(messageResolver.getMessage("userNotFound"));
-        } else {
-            userRepository.delete(optionalUser.get());
-            return String.format(messageResolver.getMessage(
-                    "userDeleted",
-                    new Object[] {id}
-            ), id);
+        User user = userRepository.findById(id).orElseThrow(
+                () -> new UserNotFoundException(messageResolver.getMessage("userNotFound"))
+        );
+        userRepository.delete(user);
+        afterCommit(() -> {
+            userDetailsCache.evictAllById(List.of(id));
+            buddyBitmapIndex.remove(id);
+            tokenVersionRegistry.revoke(id);
+        });
+        return String.format(messageResolver.getMessage(
+                "userDeleted",
+                new Object[] {id}
+        ), id);
+    }
+
+    /**
+     * Deletes many users with one DELETE statement per {@value #DELETE_BATCH_SIZE} ids, for account cleanup jobs.
+     * Ids that do not exist are skipped. Every batch commits on its own, and its users are evicted and their tokens
+     * revoked right after, so a failing batch leaves the earlier ones complete.
+     */
+    public String deleteUsers(Collection<Long> ids) {
+        if (ids == null || ids.stream().anyMatch(id -> id == null || id < 0)) {
+            throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+        }
+
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        int deleted = 0;
+        for (int from = 0; from < distinctIds.size(); from += DELETE_BATCH_SIZE) {
+            List<Long> batch = distinctIds.subList(from, Math.min(from + DELETE_BATCH_SIZE, distinctIds.size()));
+            // Only the ids that existed are evicted and revoked, so unknown ids leave nothing behind in the registry.
+            List<Long> deletedIds = userRepository.deleteUsersByIdInReturningIds(batch);
+            userDetailsCache.evictAllById(deletedIds);
+            buddyBitmapIndex.removeAll(deletedIds);
+            deletedIds.forEach(tokenVersionRegistry::revoke);
+            deleted += deletedIds.size();
         }
+        return messageResolver.getMessage("usersDeleted", new Object[] {deleted});
     }
 }
@@ -0,0 +1,18 @@
+package com.league_buddies.backend.user;
+
+// A public profile with the version of its row, which UserController sends as the ETag.
+public record VersionedUserDTO(long version, UserDTO user) {
+    static VersionedUserDTO of(User user) {
+        return new VersionedUserDTO(user.getVersion(), new UserDTO(
+                user.getId(),
+                user.getDisplayName(),
+                user.getLeagueOfLegendsUserName(),
+                user.getFavoritePosition(),
+                user.getFavoriteChampion(),
+                user.getDescription(),
+                user.getPlayerType(),
+                user.getWinRate(),
+                user.getServers()
+        ));
+    }
+}
@@ -0,0 +1,80 @@
+package com.league_buddies.backend.user.exporting;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+// The export is written straight to the response stream, compressed on the fly if the client accepts gzip.
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/users")
+public class UserExportController {
+    private static final String GZIP = "gzip";
+
+    // Large enough that the deflater works on whole chunks of users rather than on single lines.
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    private final UserExportService userExportService;
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportNdjson(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(acceptEncoding)) {
+            userExportService.exportUsers(response.getOutputStream());
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        try (OutputStream gzip = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE)) {
+            userExportService.exportUsers(gzip);
+        }
+    }
+
+    // Whether gzip is listed, or covered by *, with a quality above zero. An explicit gzip entry wins over *, so
+    // "*, gzip;q=0" refuses gzip.
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parameters = entry.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals(GZIP)) {
+                return quality(parameters) > 0;
+            }
+            if (coding.equals("*")) {
+                wildcard = quality(parameters) > 0;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    // The q parameter of an Accept-Encoding entry, 1 when it is missing and 0 when it cannot be read.
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String[] parameter = parameters[i].split("=", 2);
+            if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(parameter[1].trim());
+                } catch (NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,29 @@
+package com.league_buddies.backend.user.exporting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.league_buddies.backend.user.UserCursorRepository;
+import com.league_buddies.backend.user.UserDTOStreamWriter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Exports the public profile of every user as NDJSON, one UserDTO per line in id order. Users are written while
+ * they are read from the database cursor, so the heap used does not depend on the number of users.
+ */
+@Service
+public class UserExportService {
+    private final UserCursorRepository userCursorRepository;
+
+    private final UserDTOStreamWriter userDTOStreamWriter;
+
+    public UserExportService(UserCursorRepository userCursorRepository, ObjectMapper objectMapper) {
+        this.userCursorRepository = userCursorRepository;
+        this.userDTOStreamWriter = new UserDTOStreamWriter(objectMapper);
+    }
+
+    public void exportUsers(OutputStream outputStream) throws IOException {
+        userDTOStreamWriter.writeNdjson(outputStream, userCursorRepository::forEachUserDTO);
+    }
+}
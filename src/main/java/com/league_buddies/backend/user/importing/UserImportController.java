@@ -0,0 +1,31 @@
+package com.league_buddies.backend.user.importing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// The body is read straight from the request stream so that large files are never buffered in memory.
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/users")
+public class UserImportController {
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final UserImportService userImportService;
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<UserImportResult> importCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(body, UserImportFormat.CSV));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<UserImportResult> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(userImportService.importUsers(body, UserImportFormat.NDJSON));
+    }
+}
@@ -0,0 +1,3 @@
+package com.league_buddies.backend.user.importing;
+
+public record UserImportFailure(long lineNumber, String emailAddress, String reason) { }
@@ -0,0 +1,6 @@
+package com.league_buddies.backend.user.importing;
+
+public enum UserImportFormat {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,163 @@
+package com.league_buddies.backend.user.importing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads an import body one line at a time so that only the current line is held in memory.
+ * CSV bodies start with a header naming the emailAddress, password and optionally displayName columns in any order.
+ * Values may be quoted with double quotes, but a row cannot span lines.
+ * NDJSON bodies hold one JSON object per line with the same field names.
+ */
+class UserImportReader implements Closeable {
+    private static final String EMAIL_ADDRESS = "emailaddress";
+
+    private static final String PASSWORD = "password";
+
+    private static final String DISPLAY_NAME = "displayname";
+
+    private final BufferedReader reader;
+
+    private final UserImportFormat format;
+
+    private final ObjectMapper objectMapper;
+
+    private long lineNumber;
+
+    private int emailAddressColumn = -1;
+
+    private int passwordColumn = -1;
+
+    private int displayNameColumn = -1;
+
+    UserImportReader(InputStream inputStream, UserImportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == UserImportFormat.CSV) {
+            readHeader();
+        }
+    }
+
+    boolean hasRequiredColumns() {
+        return format == UserImportFormat.NDJSON || (emailAddressColumn >= 0 && passwordColumn >= 0);
+    }
+
+    /**
+     * @return the next row, or null at the end of the body. Blank lines are skipped.
+     */
+    UserImportRow next() throws IOException {
+        String line = nextNonBlankLine();
+        if (line == null) {
+            return null;
+        }
+        return format == UserImportFormat.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    private void readHeader() throws IOException {
+        String header = nextNonBlankLine();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = splitCsv(header);
+        for (int i = 0; columns != null && i < columns.size(); i++) {
+            switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case EMAIL_ADDRESS -> emailAddressColumn = i;
+                case PASSWORD -> passwordColumn = i;
+                case DISPLAY_NAME -> displayNameColumn = i;
+                default -> { }
+            }
+        }
+    }
+
+    private String nextNonBlankLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+        } while (line != null && line.isBlank());
+        return line;
+    }
+
+    private UserImportRow parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        if (values == null) {
+            return new UserImportRow(lineNumber, null, null, null);
+        }
+        return new UserImportRow(
+                lineNumber,
+                column(values, emailAddressColumn),
+                column(values, passwordColumn),
+                column(values, displayNameColumn)
+        );
+    }
+
+    private UserImportRow parseJson(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return new UserImportRow(
+                    lineNumber,
+                    node.path("emailAddress").textValue(),
+                    node.path("password").textValue(),
+                    node.path("displayName").textValue()
+            );
+        } catch (JsonProcessingException exception) {
+            return new UserImportRow(lineNumber, null, null, null);
+        }
+    }
+
+    private static String column(List<String> values, int index) {
+        if (index < 0 || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    // Returns null when a quoted value is not closed.
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char character = line.charAt(i);
+            if (quoted) {
+                if (character == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (character == '"') {
+                    quoted = false;
+                } else {
+                    value.append(character);
+                }
+            } else if (character == '"') {
+                quoted = true;
+            } else if (character == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(character);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
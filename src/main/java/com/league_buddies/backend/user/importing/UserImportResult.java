@@ -0,0 +1,16 @@
+package com.league_buddies.backend.user.importing;
+
+import java.util.List;
+
+/**
+ * @param failures the first failed rows, capped so that a bad file cannot blow up the response.
+ *                 {@code failed} always holds the full count.
+ */
+public record UserImportResult(
+        long rowsRead,
+        long imported,
+        long failed,
+        List<UserImportFailure> failures,
+        long durationMillis,
+        double rowsPerSecond
+) { }
@@ -0,0 +1,4 @@
+package com.league_buddies.backend.user.importing;
+
+// Fields are null when the line could not be parsed.
+public record UserImportRow(long lineNumber, String emailAddress, String password, String displayName) { }
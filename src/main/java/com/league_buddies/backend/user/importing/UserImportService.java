@@ -0,0 +1,191 @@
+package com.league_buddies.backend.user.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.league_buddies.backend.exception.IllegalArgumentException;
+import com.league_buddies.backend.security.password.AsyncPasswordEncoder;
+import com.league_buddies.backend.user.BuddyBitmapIndex;
+import com.league_buddies.backend.user.User;
+import com.league_buddies.backend.user.UserRepository;
+import com.league_buddies.backend.util.MessageResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports users from a streamed CSV or NDJSON body. Rows are processed in chunks of the JDBC batch size: the
+ * passwords of a chunk are hashed in parallel and the chunk is inserted in one transaction as a single JDBC batch.
+ * Rows that cannot be imported are reported with their line number instead of failing the whole import. When the
+ * password hashing pool stays full the import stops with a ServiceBusyException. The chunks imported until then are
+ * kept, and running the import again skips them as existing rows.
+ */
+@Service
+public class UserImportService {
+    private final UserRepository userRepository;
+
+    private final BuddyBitmapIndex buddyBitmapIndex;
+
+    private final AsyncPasswordEncoder asyncPasswordEncoder;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MessageResolver messageResolver;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    private final int maxReportedFailures;
+
+    public UserImportService(
+            UserRepository userRepository,
+            BuddyBitmapIndex buddyBitmapIndex,
+            AsyncPasswordEncoder asyncPasswordEncoder,
+            TransactionTemplate transactionTemplate,
+            MessageResolver messageResolver,
+            ObjectMapper objectMapper,
+            @Value("${jdbcBatching.batchSize:" + User.ID_ALLOCATION_SIZE + "}") int batchSize,
+            @Value("${userImport.maxReportedFailures:1000}") int maxReportedFailures
+    ) {
+        this.userRepository = userRepository;
+        this.buddyBitmapIndex = buddyBitmapIndex;
+        this.asyncPasswordEncoder = asyncPasswordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.messageResolver = messageResolver;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    public UserImportResult importUsers(InputStream inputStream, UserImportFormat format) throws IOException {
+        long start = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        try (UserImportReader reader = new UserImportReader(inputStream, format, objectMapper)) {
+            if (!reader.hasRequiredColumns()) {
+                throw new IllegalArgumentException(messageResolver.getMessage("illegalArgument"));
+            }
+
+            List<UserImportRow> chunk = new ArrayList<>(batchSize);
+            UserImportRow row;
+            while ((row = reader.next()) != null) {
+                progress.rowsRead++;
+                if (row.emailAddress() == null || row.emailAddress().isBlank() || row.password() == null) {
+                    progress.fail(row, messageResolver.getMessage("invalidImportRow"));
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == batchSize) {
+                    importChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            importChunk(chunk, progress);
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        double seconds = Math.max(durationNanos, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+        return new UserImportResult(
+                progress.rowsRead,
+                progress.imported,
+                progress.failed,
+                progress.failures,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                progress.rowsRead / seconds
+        );
+    }
+
+    private void importChunk(List<UserImportRow> chunk, ImportProgress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        // Rows that already exist are filtered out up front, so that re-running an import does not send every
+        // batch down the slow row by row path below.
+        Set<String> existingEmailAddresses = userRepository.findExistingEmailAddresses(
+                chunk.stream().map(row -> User.normalizeEmailAddress(row.emailAddress())).toList()
+        );
+        Set<String> seenEmailAddresses = new HashSet<>();
+        List<UserImportRow> newRows = new ArrayList<>(chunk.size());
+        for (UserImportRow row : chunk) {
+            String emailAddress = User.normalizeEmailAddress(row.emailAddress());
+            if (existingEmailAddresses.contains(emailAddress) || !seenEmailAddresses.add(emailAddress)) {
+                progress.fail(row, messageResolver.getMessage("usernameAlreadyExists", new Object[] {emailAddress}));
+            } else {
+                newRows.add(row);
+            }
+        }
+        if (newRows.isEmpty()) {
+            return;
+        }
+
+        List<String> encodedPasswords = asyncPasswordEncoder.encodeAll(
+                newRows.stream().map(UserImportRow::password).toList()
+        );
+        try {
+            List<User> users = transactionTemplate.execute(status -> {
+                List<User> chunkUsers = new ArrayList<>(newRows.size());
+                for (int i = 0; i < newRows.size(); i++) {
+                    chunkUsers.add(toUser(newRows.get(i), encodedPasswords.get(i)));
+                }
+                return userRepository.saveAllAndFlush(chunkUsers);
+            });
+            buddyBitmapIndex.indexAll(users);
+            progress.imported += newRows.size();
+        } catch (DataIntegrityViolationException exception) {
+            // Someone registered one of the addresses in the meantime. Retry one row at a time to find out which.
+            for (int i = 0; i < newRows.size(); i++) {
+                importRow(newRows.get(i), encodedPasswords.get(i), progress);
+            }
+        }
+    }
+
+    private void importRow(UserImportRow row, String encodedPassword, ImportProgress progress) {
+        try {
+            User user = transactionTemplate.execute(
+                    status -> userRepository.saveAndFlush(toUser(row, encodedPassword))
+            );
+            buddyBitmapIndex.index(user);
+            progress.imported++;
+        } catch (DataIntegrityViolationException exception) {
+            if (User.isEmailAddressConflict(exception)) {
+                progress.fail(row, messageResolver.getMessage(
+                        "usernameAlreadyExists",
+                        new Object[] {User.normalizeEmailAddress(row.emailAddress())}
+                ));
+            } else {
+                progress.fail(row, messageResolver.getMessage("importRowRejected"));
+            }
+        }
+    }
+
+    private static User toUser(UserImportRow row, String encodedPassword) {
+        User user = new User(row.emailAddress(), encodedPassword);
+        user.setDisplayName(row.displayName());
+        return user;
+    }
+
+    private class ImportProgress {
+        private long rowsRead;
+
+        private long imported;
+
+        private long failed;
+
+        private final List<UserImportFailure> failures = new ArrayList<>();
+
+        void fail(UserImportRow row, String reason) {
+            failed++;
+            if (failures.size() < maxReportedFailures) {
+                failures.add(new UserImportFailure(row.lineNumber(), row.emailAddress(), reason));
+            }
+        }
+    }
+}
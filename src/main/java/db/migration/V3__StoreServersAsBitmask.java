@@ -0,0 +1,111 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Replaces the servers column with an integer bitmask where bit n is set if the server with ordinal n is in the set.
+ * Depending on the Hibernate version that created the table the old column holds either an array of ordinals
+ * or a serialized Java set, so this is a Java migration that can read both. Flyway finds it on the classpath next
+ * to the SQL migrations in db/migration. The servers are copied into {@link SerializedServer} rather than taken from
+ * the application, so that later changes to the application cannot change what this migration does.
+ */
+public class V3__StoreServersAsBitmask extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SERVER_CLASS_NAME = "com.league_buddies.backend.user.Server";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table user_table add column servers_bitmask integer default 0 not null");
+        }
+
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("select id, servers from user_table where servers is not null");
+             PreparedStatement update = connection.prepareStatement(
+                     "update user_table set servers_bitmask = ? where id = ?"
+             )) {
+            int pending = 0;
+            while (rows.next()) {
+                update.setInt(1, toBitmask(rows.getObject("servers")));
+                update.setLong(2, rows.getLong("id"));
+                update.addBatch();
+                if (++pending % BATCH_SIZE == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table user_table drop column servers");
+        }
+    }
+
+    private static int toBitmask(Object servers) throws Exception {
+        if (servers instanceof Array array) {
+            int bitmask = 0;
+            for (Object ordinal : (Object[]) array.getArray()) {
+                if (ordinal != null) {
+                    bitmask |= 1 << ((Number) ordinal).intValue();
+                }
+            }
+            return bitmask;
+        }
+        if (servers instanceof byte[] bytes) {
+            try (ObjectInputStream input = new SerializedServersInputStream(bytes)) {
+                int bitmask = 0;
+                for (Object server : (Set<?>) input.readObject()) {
+                    bitmask |= 1 << ((SerializedServer) server).bit;
+                }
+                return bitmask;
+            }
+        }
+        throw new IllegalStateException("Unexpected servers column value: " + servers.getClass());
+    }
+
+    // The servers when this migration was written, with the bit each one is stored as.
+    private enum SerializedServer {
+        NA(0),
+        EUNE(1),
+        EUW(2),
+        LAN(3),
+        OCE(4),
+        LAS(5);
+
+        private final int bit;
+
+        SerializedServer(int bit) {
+            this.bit = bit;
+        }
+    }
+
+    // Enums are serialized by name, so the servers in the set are read as the SerializedServer of the same name.
+    private static class SerializedServersInputStream extends ObjectInputStream {
+        SerializedServersInputStream(byte[] bytes) throws IOException {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass description = super.readClassDescriptor();
+            if (description.getName().equals(SERVER_CLASS_NAME)) {
+                return ObjectStreamClass.lookup(SerializedServer.class);
+            }
+            return description;
+        }
+    }
+}
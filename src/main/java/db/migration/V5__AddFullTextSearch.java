@@ -0,0 +1,38 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Statement;
+
+/**
+ * Adds the search_vector column used by the full-text user search, see
+ * {@link com.league_buddies.backend.user.UserSearchRepository#searchUsersByText}. The column is generated by
+ * Postgres from the free-text fields, so it can never go stale, and a GIN index makes matching it cheap.
+ * Names weigh more than the favorite champion, which weighs more than the description. The simple configuration is
+ * used because names and champions are not English words to be stemmed.
+ * <p>
+ * Other databases, such as the embedded one used in tests, have no tsvector type. They are left unchanged and the
+ * search falls back to substring matching there.
+ */
+public class V5__AddFullTextSearch extends BaseJavaMigration {
+    @Override
+    public void migrate(Context context) throws Exception {
+        String databaseProductName = context.getConnection().getMetaData().getDatabaseProductName();
+        if (!"PostgreSQL".equals(databaseProductName)) {
+            return;
+        }
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            statement.execute("""
+                    alter table user_table add column search_vector tsvector generated always as (
+                        setweight(to_tsvector('simple', coalesce(display_name, '')), 'A')
+                        || setweight(to_tsvector('simple', coalesce(league_of_legends_user_name, '')), 'A')
+                        || setweight(to_tsvector('simple', coalesce(favorite_champion, '')), 'B')
+                        || setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+                    ) stored
+                    """);
+            statement.execute("create index ix_user_table_search_vector on user_table using gin (search_vector)");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Replaces the free-text favorite_champion column with a smallint reference to the champion catalog created by V6,
+ * see {@link com.league_buddies.backend.champion.ChampionConverter}. Existing names are matched ignoring case,
+ * spaces and punctuation, so "kaisa" and "Kai'Sa" both become Kai'Sa. Names that are no champion are cleared, and
+ * kept with the id of their user in the unmatched_favorite_champion table.
+ * <p>
+ * On PostgreSQL the generated search_vector column of V5 reads favorite_champion, so it is recreated without it.
+ * The text search matches champions through the new id column instead.
+ */
+public class V7__StoreFavoriteChampionAsId extends BaseJavaMigration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(V7__StoreFavoriteChampionAsId.class);
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("alter table user_table drop column search_vector");
+            }
+            statement.execute("alter table user_table add column favorite_champion_id smallint");
+            statement.execute("alter table user_table add constraint fk_user_table_favorite_champion "
+                    + "foreign key (favorite_champion_id) references champion (id)");
+        }
+
+        Map<String, Short> championIds = new HashMap<>();
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery("select id, name from champion")) {
+            while (rows.next()) {
+                championIds.put(key(rows.getString("name")), rows.getShort("id"));
+            }
+        }
+
+        // The names are matched here, once per distinct name, and the users are updated with one statement that
+        // looks the names up in a mapping table by its primary key, instead of one table scan per name.
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table favorite_champion_mapping ("
+                    + "name varchar(255) primary key, champion_id smallint not null)");
+        }
+        try (Statement select = connection.createStatement();
+             ResultSet rows = select.executeQuery(
+                     "select distinct favorite_champion from user_table where favorite_champion is not null"
+             );
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into favorite_champion_mapping (name, champion_id) values (?, ?)"
+             )) {
+            while (rows.next()) {
+                String name = rows.getString("favorite_champion");
+                Short id = championIds.get(key(name));
+                if (id != null) {
+                    insert.setString(1, name);
+                    insert.setShort(2, id);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("update user_table set favorite_champion_id = ("
+                    + "select m.champion_id from favorite_champion_mapping m "
+                    + "where m.name = user_table.favorite_champion) "
+                    + "where favorite_champion is not null");
+            statement.execute("drop table favorite_champion_mapping");
+
+            statement.execute("create table unmatched_favorite_champion ("
+                    + "user_id bigint primary key, favorite_champion varchar(255) not null)");
+            int unmatched = statement.executeUpdate("insert into unmatched_favorite_champion "
+                    + "(user_id, favorite_champion) select id, favorite_champion from user_table "
+                    + "where favorite_champion is not null and favorite_champion_id is null");
+            if (unmatched > 0) {
+                LOGGER.warn("{} favorite champions match no champion and were copied to unmatched_favorite_champion",
+                        unmatched);
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table user_table drop column favorite_champion");
+            statement.execute("create index ix_user_table_champion_win_rate "
+                    + "on user_table (favorite_champion_id, win_rate desc, id desc)");
+            if (postgres) {
+                statement.execute("""
+                        alter table user_table add column search_vector tsvector generated always as (
+                            setweight(to_tsvector('simple', coalesce(display_name, '')), 'A')
+                            || setweight(to_tsvector('simple', coalesce(league_of_legends_user_name, '')), 'A')
+                            || setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+                        ) stored
+                        """);
+                statement.execute(
+                        "create index ix_user_table_search_vector on user_table using gin (search_vector)"
+                );
+            }
+        }
+    }
+
+    // The names are matched as the champion catalog matched them when this migration was written. The rule is copied
+    // here, so that later changes to the catalog cannot change what this migration does.
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]", "");
+    }
+}
@@ -0,0 +1,3 @@
+-- Version of the tokens issued to a user. Tokens carrying an older version are rejected, e.g. after a role change.
+-- Existing users start at 0, which is the version their current tokens carry.
+alter table user_table add column token_version integer default 0 not null;
@@ -0,0 +1,6 @@
+-- Denylist of revoked token ids, e.g. after a logout. Rows are only needed until the token would have expired.
+create table revoked_token (
+    jti varchar(255) not null,
+    expires_at timestamp(6) with time zone not null,
+    primary key (jti)
+);
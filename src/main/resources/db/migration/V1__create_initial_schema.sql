@@ -0,0 +1,20 @@
+-- Schema as Hibernate generated it before migrations were introduced, and nothing newer.
+-- Databases that already have these tables are baselined at this version instead of running it, so every later
+-- change has to be a migration of its own.
+create sequence user_table_seq start with 1 increment by 50;
+
+create table user_table (
+    id bigint not null,
+    description varchar(255),
+    display_name varchar(255),
+    email_address varchar(255) not null,
+    favorite_champion varchar(255),
+    favorite_position smallint,
+    league_of_legends_user_name varchar(255),
+    password varchar(255) not null,
+    player_type smallint,
+    role varchar(255) not null,
+    servers smallint array,
+    win_rate real not null,
+    primary key (id)
+);
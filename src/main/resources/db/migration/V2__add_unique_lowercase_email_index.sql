@@ -0,0 +1,6 @@
+-- Email addresses are normalized to lowercase by the application from now on, so a plain unique index on the
+-- column is a case-insensitive unique index and serves the equality lookup done on every login and request.
+-- If two existing accounts only differ by case this migration fails and they have to be merged by hand first.
+update user_table set email_address = lower(trim(email_address)) where email_address <> lower(trim(email_address));
+
+create unique index if not exists ux_user_table_email_address on user_table (email_address);
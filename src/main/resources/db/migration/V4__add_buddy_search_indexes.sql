@@ -0,0 +1,11 @@
+-- Indexes for the buddy search, which orders by win_rate desc, id desc and seeks past the last row of the previous
+-- page. Each index starts with the equality filters and ends with the sort columns, so a page is a short range scan
+-- whatever its depth. The servers bitmask is filtered on the rows the index returns.
+create index ix_user_table_position_type_win_rate
+    on user_table (favorite_position, player_type, win_rate desc, id desc);
+
+create index ix_user_table_type_win_rate
+    on user_table (player_type, win_rate desc, id desc);
+
+create index ix_user_table_win_rate
+    on user_table (win_rate desc, id desc);
@@ -0,0 +1,180 @@
+-- Catalog of the champions a user can pick as favorite. Users reference it by id, see V7.
+-- New champions are added by later migrations with the next free id. Ids are never reused.
+create table champion (
+    id smallint not null,
+    name varchar(64) not null,
+    primary key (id),
+    constraint ux_champion_name unique (name)
+);
+
+insert into champion (id, name) values
+    (1, 'Aatrox'),
+    (2, 'Ahri'),
+    (3, 'Akali'),
+    (4, 'Akshan'),
+    (5, 'Alistar'),
+    (6, 'Ambessa'),
+    (7, 'Amumu'),
+    (8, 'Anivia'),
+    (9, 'Annie'),
+    (10, 'Aphelios'),
+    (11, 'Ashe'),
+    (12, 'Aurelion Sol'),
+    (13, 'Aurora'),
+    (14, 'Azir'),
+    (15, 'Bard'),
+    (16, 'Bel''Veth'),
+    (17, 'Blitzcrank'),
+    (18, 'Brand'),
+    (19, 'Braum'),
+    (20, 'Briar'),
+    (21, 'Caitlyn'),
+    (22, 'Camille'),
+    (23, 'Cassiopeia'),
+    (24, 'Cho''Gath'),
+    (25, 'Corki'),
+    (26, 'Darius'),
+    (27, 'Diana'),
+    (28, 'Dr. Mundo'),
+    (29, 'Draven'),
+    (30, 'Ekko'),
+    (31, 'Elise'),
+    (32, 'Evelynn'),
+    (33, 'Ezreal'),
+    (34, 'Fiddlesticks'),
+    (35, 'Fiora'),
+    (36, 'Fizz'),
+    (37, 'Galio'),
+    (38, 'Gangplank'),
+    (39, 'Garen'),
+    (40, 'Gnar'),
+    (41, 'Gragas'),
+    (42, 'Graves'),
+    (43, 'Gwen'),
+    (44, 'Hecarim'),
+    (45, 'Heimerdinger'),
+    (46, 'Hwei'),
+    (47, 'Illaoi'),
+    (48, 'Irelia'),
+    (49, 'Ivern'),
+    (50, 'Janna'),
+    (51, 'Jarvan IV'),
+    (52, 'Jax'),
+    (53, 'Jayce'),
+    (54, 'Jhin'),
+    (55, 'Jinx'),
+    (56, 'K''Sante'),
+    (57, 'Kai''Sa'),
+    (58, 'Kalista'),
+    (59, 'Karma'),
+    (60, 'Karthus'),
+    (61, 'Kassadin'),
+    (62, 'Katarina'),
+    (63, 'Kayle'),
+    (64, 'Kayn'),
+    (65, 'Kennen'),
+    (66, 'Kha''Zix'),
+    (67, 'Kindred'),
+    (68, 'Kled'),
+    (69, 'Kog''Maw'),
+    (70, 'LeBlanc'),
+    (71, 'Lee Sin'),
+    (72, 'Leona'),
+    (73, 'Lillia'),
+    (74, 'Lissandra'),
+    (75, 'Lucian'),
+    (76, 'Lulu'),
+    (77, 'Lux'),
+    (78, 'Malphite'),
+    (79, 'Malzahar'),
+    (80, 'Maokai'),
+    (81, 'Master Yi'),
+    (82, 'Mel'),
+    (83, 'Milio'),
+    (84, 'Miss Fortune'),
+    (85, 'Mordekaiser'),
+    (86, 'Morgana'),
+    (87, 'Naafiri'),
+    (88, 'Nami'),
+    (89, 'Nasus'),
+    (90, 'Nautilus'),
+    (91, 'Neeko'),
+    (92, 'Nidalee'),
+    (93, 'Nilah'),
+    (94, 'Nocturne'),
+    (95, 'Nunu & Willump'),
+    (96, 'Olaf'),
+    (97, 'Orianna'),
+    (98, 'Ornn'),
+    (99, 'Pantheon'),
+    (100, 'Poppy'),
+    (101, 'Pyke'),
+    (102, 'Qiyana'),
+    (103, 'Quinn'),
+    (104, 'Rakan'),
+    (105, 'Rammus'),
+    (106, 'Rek''Sai'),
+    (107, 'Rell'),
+    (108, 'Renata Glasc'),
+    (109, 'Renekton'),
+    (110, 'Rengar'),
+    (111, 'Riven'),
+    (112, 'Rumble'),
+    (113, 'Ryze'),
+    (114, 'Samira'),
+    (115, 'Sejuani'),
+    (116, 'Senna'),
+    (117, 'Seraphine'),
+    (118, 'Sett'),
+    (119, 'Shaco'),
+    (120, 'Shen'),
+    (121, 'Shyvana'),
+    (122, 'Singed'),
+    (123, 'Sion'),
+    (124, 'Sivir'),
+    (125, 'Skarner'),
+    (126, 'Smolder'),
+    (127, 'Sona'),
+    (128, 'Soraka'),
+    (129, 'Swain'),
+    (130, 'Sylas'),
+    (131, 'Syndra'),
+    (132, 'Tahm Kench'),
+    (133, 'Taliyah'),
+    (134, 'Talon'),
+    (135, 'Taric'),
+    (136, 'Teemo'),
+    (137, 'Thresh'),
+    (138, 'Tristana'),
+    (139, 'Trundle'),
+    (140, 'Tryndamere'),
+    (141, 'Twisted Fate'),
+    (142, 'Twitch'),
+    (143, 'Udyr'),
+    (144, 'Urgot'),
+    (145, 'Varus'),
+    (146, 'Vayne'),
+    (147, 'Veigar'),
+    (148, 'Vel''Koz'),
+    (149, 'Vex'),
+    (150, 'Vi'),
+    (151, 'Viego'),
+    (152, 'Viktor'),
+    (153, 'Vladimir'),
+    (154, 'Volibear'),
+    (155, 'Warwick'),
+    (156, 'Wukong'),
+    (157, 'Xayah'),
+    (158, 'Xerath'),
+    (159, 'Xin Zhao'),
+    (160, 'Yasuo'),
+    (161, 'Yone'),
+    (162, 'Yorick'),
+    (163, 'Yuumi'),
+    (164, 'Zac'),
+    (165, 'Zed'),
+    (166, 'Zeri'),
+    (167, 'Ziggs'),
+    (168, 'Zilean'),
+    (169, 'Zoe'),
+    (170, 'Zyra');
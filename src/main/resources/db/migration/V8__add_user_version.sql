@@ -0,0 +1,3 @@
+-- Version of the row for optimistic locking, incremented by Hibernate on every update. It is exposed as the ETag of
+-- a user, so clients can revalidate cached profiles and make conditional updates.
+alter table user_table add column version bigint default 0 not null;
@@ -0,0 +1,5 @@
+-- The buddy search filtered by position alone. ix_user_table_position_type_win_rate has player_type between the
+-- position and the sort columns, so without a player type its rows do not come out in win_rate desc, id desc order
+-- and every user of the position would be read and sorted before the first page.
+create index ix_user_table_position_win_rate
+    on user_table (favorite_position, win_rate desc, id desc);
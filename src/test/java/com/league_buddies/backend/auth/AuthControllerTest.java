@@ -4,8 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.league_buddies.backend.exception.*;
 import com.league_buddies.backend.exception.IllegalArgumentException;
 import com.league_buddies.backend.security.jwt.JwtService;
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
+import com.league_buddies.backend.security.revocation.TokenRevocationStore;
 import com.league_buddies.backend.user.User;
 import com.league_buddies.backend.util.MessageResolver;
+import io.jsonwebtoken.MalformedJwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,7 +16,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -22,16 +27,23 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest(AuthController.class)
+@Import(MessageResolver.class)
 class AuthControllerTest {
     @MockBean
     private AuthService authService;
@@ -39,6 +51,12 @@ class AuthControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @MockBean
+    private TokenRevocationStore tokenRevocationStore;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -118,15 +136,16 @@ class AuthControllerTest {
     public void canRegister() throws Exception {
         // Arrange
         AuthResponse fakeAuthResponse = new AuthResponse("fakeToken");
-        when(authService.register(any())).thenReturn(fakeAuthResponse);
+        when(authService.register(any())).thenReturn(CompletableFuture.completedFuture(fakeAuthResponse));
 
         // Act
-        MockHttpServletResponse response = mockMvc.perform(
+        MvcResult mvcResult = mockMvc.perform(
                 post(controllerEndpoint + "/register")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(authRequest))
-        ).andReturn().getResponse();
+        ).andReturn();
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(mvcResult)).andReturn().getResponse();
 
         AuthResponse authResponse = objectMapper.readValue(response.getContentAsString(), AuthResponse.class);
 
@@ -140,7 +159,7 @@ class AuthControllerTest {
     public void throwsWhenLoggingIsMissingUsernameOrPassword() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("illegalArgument");
-        when(authService.login(any())).thenThrow(new IllegalArgumentException(exceptionMessage));
+        when(authService.login(any(), any())).thenThrow(new IllegalArgumentException(exceptionMessage));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -161,7 +180,7 @@ class AuthControllerTest {
     public void throwsWhenLoggingWithIncorrectPassword() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("invalidPassword");
-        when(authService.login(any())).thenThrow(new InvalidPasswordException(exceptionMessage));
+        when(authService.login(any(), any())).thenThrow(new InvalidPasswordException(exceptionMessage));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -182,7 +201,7 @@ class AuthControllerTest {
     public void throwsWhenLoggingWithUsernameThatDoesNotExist() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("userNotFound");
-        when(authService.login(any())).thenThrow(new UserNotFoundException(exceptionMessage));
+        when(authService.login(any(), any())).thenThrow(new UserNotFoundException(exceptionMessage));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -203,15 +222,16 @@ class AuthControllerTest {
     public void canLogin() throws Exception {
         // Arrange
         AuthResponse fakeAuthResponse = new AuthResponse("fakeToken");
-        when(authService.login(any())).thenReturn(fakeAuthResponse);
+        when(authService.login(any(), any())).thenReturn(CompletableFuture.completedFuture(fakeAuthResponse));
 
         // Act
-        MockHttpServletResponse response = mockMvc.perform(
+        MvcResult mvcResult = mockMvc.perform(
                 post(controllerEndpoint + "/login")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(authRequest))
-        ).andReturn().getResponse();
+        ).andReturn();
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(mvcResult)).andReturn().getResponse();
         AuthResponse authResponse = objectMapper.readValue(response.getContentAsString(), AuthResponse.class);
 
         // Assert
@@ -219,4 +239,85 @@ class AuthControllerTest {
         assertEquals("fakeToken", authResponse.token());
         assertTrue(authResponse.token() instanceof String);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void canLogout() throws Exception {
+        // Arrange
+        // The mocked token is not a real JWT, so the authentication filter lets the request through unauthenticated.
+        when(jwtService.validateToken(any())).thenThrow(new MalformedJwtException("fakeToken"));
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                post(controllerEndpoint + "/logout")
+                        .with(csrf())
+                        .header("Authorization", "Bearer fakeToken")
+        ).andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.NO_CONTENT.value(), response.getStatus());
+        verify(authService).logout("Bearer fakeToken");
+    }
+
+    @Test
+    public void throwsWhenLogoutIsMissingToken() throws Exception {
+        // Arrange
+        exceptionMessage = messageResolver.getMessage("illegalArgument");
+        doThrow(new IllegalArgumentException(exceptionMessage)).when(authService).logout(any());
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                post(controllerEndpoint + "/logout")
+                        .with(csrf())
+        ).andReturn().getResponse();
+
+        ApiException apiException = objectMapper.readValue(response.getContentAsString(), ApiException.class);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertEquals(exceptionMessage, apiException.getMessage());
+    }
+
+    @Test
+    public void returnsServiceUnavailableWhenPasswordHashingIsSaturated() throws Exception {
+        // Arrange
+        exceptionMessage = messageResolver.getMessage("serviceBusy");
+        when(authService.login(any(), any())).thenThrow(new ServiceBusyException(exceptionMessage, 1));
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                post(controllerEndpoint + "/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest))
+        ).andReturn().getResponse();
+
+        ApiException apiException = objectMapper.readValue(response.getContentAsString(), ApiException.class);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(exceptionMessage, apiException.getMessage());
+    }
+
+    @Test
+    public void throwsWhenTooManyLoginAttempts() throws Exception {
+        // Arrange
+        exceptionMessage = messageResolver.getMessage("tooManyLoginAttempts");
+        when(authService.login(any(), any())).thenThrow(new TooManyLoginAttemptsException(exceptionMessage, 900));
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                post(controllerEndpoint + "/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest))
+        ).andReturn().getResponse();
+
+        ApiException apiException = objectMapper.readValue(response.getContentAsString(), ApiException.class);
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("900", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(exceptionMessage, apiException.getMessage());
+    }
+}
@@ -0,0 +1,99 @@
+package com.league_buddies.backend.auth;
+
+import com.league_buddies.backend.BackendApplication;
+import com.league_buddies.backend.exception.UsernameAlreadyExistsException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures concurrent registrations, which insert without a lookup first and leave duplicates to the unique index.
+ * registerNewEmail inserts a new user on every call, and registerTakenEmail measures the rejection of an email that
+ * is already registered. Passwords are hashed at the lowest BCrypt cost, so the numbers show the work around the
+ * hash rather than the hash. Runs against the embedded test database. Run after {@code mvn test-compile} with the
+ * test classpath, e.g.
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main AuthRegistrationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class AuthRegistrationBenchmark {
+    private static final String TAKEN_EMAIL = "taken@gmail.com";
+
+    private ConfigurableApplicationContext context;
+
+    private AuthService authService;
+
+    private final AtomicLong registrations = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class, LowCostPasswordEncoderConfiguration.class)
+                .run(
+                        "--server.port=0",
+                        "--logging.level.root=WARN",
+                        // Hibernate logs every rejected insert, which would flood the output of registerTakenEmail.
+                        "--logging.level.org.hibernate=OFF",
+                        "--passwordHashing.queueCapacity=1000"
+                );
+        authService = context.getBean(AuthService.class);
+        authService.register(new AuthRequest(TAKEN_EMAIL, "password")).join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AuthResponse registerNewEmail() {
+        String email = "benchmark" + registrations.incrementAndGet() + "@gmail.com";
+        return authService.register(new AuthRequest(email, "password")).join();
+    }
+
+    @Benchmark
+    public Throwable registerTakenEmail() {
+        try {
+            authService.register(new AuthRequest(TAKEN_EMAIL, "password")).join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof UsernameAlreadyExistsException) {
+                return exception.getCause();
+            }
+            throw exception;
+        }
+        throw new IllegalStateException(TAKEN_EMAIL + " was registered twice");
+    }
+
+    @TestConfiguration
+    static class LowCostPasswordEncoderConfiguration {
+        @Bean
+        @Primary
+        public PasswordEncoder lowCostPasswordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthRegistrationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.league_buddies.backend.auth;
+
+import com.league_buddies.backend.exception.UsernameAlreadyExistsException;
+import com.league_buddies.backend.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "passwordHashing.queueCapacity=1000")
+class AuthServiceConcurrencyTest {
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final int threads = 32;
+
+    private final int registrationsPerThread = 4;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void onlyOneConcurrentRegistrationWinsForTheSameEmail() throws Exception {
+        // Arrange
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // Act
+        runConcurrently(threadIndex -> "same@gmail.com", created, conflicts);
+
+        // Assert
+        assertEquals(1, created.get());
+        assertEquals(threads * registrationsPerThread - 1, conflicts.get());
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void concurrentRegistrationsForDifferentEmailsAllSucceed() throws Exception {
+        // Arrange
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger sequence = new AtomicInteger();
+
+        // Act
+        runConcurrently(threadIndex -> "user" + sequence.incrementAndGet() + "@gmail.com", created, conflicts);
+
+        // Assert
+        assertEquals(threads * registrationsPerThread, created.get());
+        assertEquals(0, conflicts.get());
+        assertEquals(threads * registrationsPerThread, userRepository.count());
+    }
+
+    private void runConcurrently(
+            java.util.function.IntFunction<String> emailForThread,
+            AtomicInteger created,
+            AtomicInteger conflicts
+    ) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int threadIndex = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < registrationsPerThread; j++) {
+                    try {
+                        authService.register(new AuthRequest(emailForThread.apply(threadIndex), "password")).join();
+                        created.incrementAndGet();
+                    } catch (CompletionException exception) {
+                        if (!(exception.getCause() instanceof UsernameAlreadyExistsException)) {
+                            throw exception;
+                        }
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+
+    // The test is about the unique constraint, not about hashing, so the passwords are hashed at the lowest cost.
+    @TestConfiguration
+    static class LowCostPasswordEncoderConfiguration {
+        @Bean
+        @Primary
+        public PasswordEncoder lowCostPasswordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+}
@@ -1,26 +1,44 @@
 package com.league_buddies.backend.auth;
 
+import com.league_buddies.backend.datasource.ReadYourWritesTracker;
 import com.league_buddies.backend.exception.IllegalArgumentException;
 import com.league_buddies.backend.exception.InvalidPasswordException;
+import com.league_buddies.backend.exception.TooManyLoginAttemptsException;
 import com.league_buddies.backend.exception.UserNotFoundException;
 import com.league_buddies.backend.exception.UsernameAlreadyExistsException;
 import com.league_buddies.backend.security.jwt.JwtService;
+import com.league_buddies.backend.security.jwt.ValidatedToken;
+import com.league_buddies.backend.security.password.AsyncPasswordEncoder;
+import com.league_buddies.backend.security.revocation.TokenRevocationStore;
+import com.league_buddies.backend.user.BuddyBitmapIndex;
 import com.league_buddies.backend.user.User;
 import com.league_buddies.backend.user.UserRepository;
 import com.league_buddies.backend.util.MessageResolver;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.support.ResourceBundleMessageSource;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,10 +51,23 @@ class AuthServiceTest {
     private JwtService jwtService;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private AsyncPasswordEncoder asyncPasswordEncoder;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Mock
+    private BuddyBitmapIndex buddyBitmapIndex;
 
     private AuthService authService;
 
+    private LoginAttemptTracker loginAttemptTracker;
+
+    // Set while a task runs on the executor that AuthService hands the work after hashing to.
+    private boolean onTaskExecutor;
+
+    private final String clientIp = "127.0.0.1";
+
     private MessageResolver messageResolver;
 
     private final String username = "username";
@@ -54,20 +85,47 @@ class AuthServiceTest {
         messageSource.setDefaultEncoding("UTF-8");
 
         messageResolver = new MessageResolver(messageSource);
-        authService = new AuthService(jwtService, userRepository, passwordEncoder, messageResolver);
+        loginAttemptTracker = new LoginAttemptTracker(Duration.ofMinutes(15), 3, 10, 1000);
+        authService = new AuthService(
+                jwtService, userRepository, asyncPasswordEncoder, messageResolver, tokenRevocationStore, loginAttemptTracker,
+                buddyBitmapIndex, new ReadYourWritesTracker(Duration.ofSeconds(5), 1000), task -> {
+                    onTaskExecutor = true;
+                    task.run();
+                    onTaskExecutor = false;
+                }
+        );
     }
 
     @Test
     void canRegister() {
         // Arrange
-        when(userRepository.save(any())).thenReturn(user);
-        when(jwtService.generateToken(anyString())).thenReturn(fakeToken);
+        when(asyncPasswordEncoder.encode(anyString())).thenReturn(CompletableFuture.completedFuture("hashedPassword"));
+        when(userRepository.saveAndFlush(any())).thenReturn(user);
+        when(jwtService.generateToken(any(User.class))).thenReturn(fakeToken);
 
         // Act
-        AuthResponse authResponse = authService.register(new AuthRequest(username, password));
+        AuthResponse authResponse = authService.register(new AuthRequest(username, password)).join();
 
         // Assert
         assertEquals(fakeToken, authResponse.token());
+        verify(buddyBitmapIndex).index(user);
+    }
+
+    @Test
+    void savesRegisteredUserOnTheTaskExecutor() {
+        // Arrange
+        when(asyncPasswordEncoder.encode(anyString())).thenReturn(CompletableFuture.completedFuture("hashedPassword"));
+        List<Boolean> savedOnTaskExecutor = new ArrayList<>();
+        when(userRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            savedOnTaskExecutor.add(onTaskExecutor);
+            return user;
+        });
+
+        // Act
+        authService.register(new AuthRequest(username, password)).join();
+
+        // Assert
+        assertEquals(List.of(true), savedOnTaskExecutor);
     }
 
     @Test
@@ -87,29 +145,34 @@ class AuthServiceTest {
     @Test
     void registerThrowsWhenUserAlreadyExists() {
         // Arrange
-        when(userRepository.findByEmailAddress(anyString())).thenReturn(Optional.of(user));
+        when(asyncPasswordEncoder.encode(anyString())).thenReturn(CompletableFuture.completedFuture("hashedPassword"));
+        when(userRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException(
+                "duplicate key",
+                new ConstraintViolationException("duplicate key", new SQLException(), User.EMAIL_ADDRESS_CONSTRAINT)
+        ));
 
         // Act
-        UsernameAlreadyExistsException exception = assertThrows(
-                UsernameAlreadyExistsException.class, () -> authService.register(new AuthRequest(username, password))
+        CompletionException exception = assertThrows(
+                CompletionException.class, () -> authService.register(new AuthRequest(username, password)).join()
         );
 
         // Assert
+        assertInstanceOf(UsernameAlreadyExistsException.class, exception.getCause());
         assertEquals(messageResolver.getMessage(
                 "usernameAlreadyExists",
                 new Object[] {username}
-        ), exception.getMessage());
+        ), exception.getCause().getMessage());
     }
 
     @Test
     void canLogin() {
         // Arrange
         when(userRepository.findByEmailAddress(anyString())).thenReturn(Optional.of(user));
-        when(jwtService.generateToken(anyString())).thenReturn(fakeToken);
-        when(passwordEncoder.matches(any(), any())).thenReturn(true);
+        when(jwtService.generateToken(any(User.class))).thenReturn(fakeToken);
+        when(asyncPasswordEncoder.matches(any(), any())).thenReturn(CompletableFuture.completedFuture(true));
 
         // Act
-        AuthResponse authResponse = authService.login(new AuthRequest(username, password));
+        AuthResponse authResponse = authService.login(new AuthRequest(username, password), clientIp).join();
 
         // Assert
         assertEquals(fakeToken, authResponse.token());
@@ -119,7 +182,7 @@ class AuthServiceTest {
     void loginThrowsWhenMissingUsernameOrPassword() {
         // Act
         IllegalArgumentException exception = assertThrows(
-                IllegalArgumentException.class, () -> authService.login(new AuthRequest("", password))
+                IllegalArgumentException.class, () -> authService.login(new AuthRequest("", password), clientIp)
         );
 
         // Assert
@@ -130,14 +193,16 @@ class AuthServiceTest {
     void loginThrowsWhenPasswordIsIncorrect() {
         // Arrange
         when(userRepository.findByEmailAddress(anyString())).thenReturn(Optional.of(user));
+        when(asyncPasswordEncoder.matches(any(), any())).thenReturn(CompletableFuture.completedFuture(false));
 
         // Act
-        InvalidPasswordException exception = assertThrows(
-                InvalidPasswordException.class, () -> authService.login(new AuthRequest(username, "badPassword"))
+        CompletionException exception = assertThrows(
+                CompletionException.class, () -> authService.login(new AuthRequest(username, "badPassword"), clientIp).join()
         );
 
         // Assert
-        assertEquals(messageResolver.getMessage("invalidPassword"), exception.getMessage());
+        assertInstanceOf(InvalidPasswordException.class, exception.getCause());
+        assertEquals(messageResolver.getMessage("invalidPassword"), exception.getCause().getMessage());
     }
 
     @Test
@@ -147,10 +212,73 @@ class AuthServiceTest {
 
         // Act
         UserNotFoundException exception = assertThrows(
-                UserNotFoundException.class, () -> authService.login(new AuthRequest(username, password))
+                UserNotFoundException.class, () -> authService.login(new AuthRequest(username, password), clientIp)
         );
 
         // Assert
         assertEquals(messageResolver.getMessage("userNotFound"), exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void revokesTokenOnLogout() {
+        // Arrange
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        Claims claims = Jwts.claims().setId("tokenId");
+        when(jwtService.validateToken(fakeToken)).thenReturn(new ValidatedToken(username, expiration, claims));
+
+        // Act
+        authService.logout("Bearer " + fakeToken);
+
+        // Assert
+        verify(tokenRevocationStore).revoke("tokenId", expiration.toInstant());
+    }
+
+    @Test
+    void logoutThrowsWhenTokenIsMissing() {
+        // Act
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class, () -> authService.logout(null)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("illegalArgument"), exception.getMessage());
+    }
+
+    @Test
+    void loginThrowsWhenTooManyAttemptsFailed() {
+        // Arrange
+        when(userRepository.findByEmailAddress(anyString())).thenReturn(Optional.of(user));
+        when(asyncPasswordEncoder.matches(any(), any())).thenReturn(CompletableFuture.completedFuture(false));
+        for (int i = 0; i < 3; i++) {
+            assertThrows(CompletionException.class, () -> authService.login(new AuthRequest(username, "badPassword"), clientIp).join());
+        }
+
+        // Act
+        TooManyLoginAttemptsException exception = assertThrows(
+                TooManyLoginAttemptsException.class, () -> authService.login(new AuthRequest(username, password), clientIp)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("tooManyLoginAttempts"), exception.getMessage());
+        verify(asyncPasswordEncoder, times(3)).matches(any(), any());
+    }
+
+    @Test
+    void loginThrowsWhenTooManyAttemptsAreStillBeingVerified() {
+        // Arrange
+        when(userRepository.findByEmailAddress(anyString())).thenReturn(Optional.of(user));
+        when(asyncPasswordEncoder.matches(any(), any())).thenReturn(new CompletableFuture<>());
+        for (int i = 0; i < 3; i++) {
+            authService.login(new AuthRequest(username, "badPassword"), clientIp);
+        }
+
+        // Act
+        TooManyLoginAttemptsException exception = assertThrows(
+                TooManyLoginAttemptsException.class, () -> authService.login(new AuthRequest(username, password), clientIp)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("tooManyLoginAttempts"), exception.getMessage());
+        verify(asyncPasswordEncoder, times(3)).matches(any(), any());
+    }
+}
@@ -0,0 +1,166 @@
+package com.league_buddies.backend.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A reserved attempt counts as failed until it is recorded as a success or refunded, so the tests fail logins by
+// reserving them and leaving them be.
+class LoginAttemptTrackerTest {
+    private LoginAttemptTracker loginAttemptTracker;
+
+    private final String username = "username";
+
+    private final String ip = "127.0.0.1";
+
+    @BeforeEach
+    void setUp() {
+        loginAttemptTracker = new LoginAttemptTracker(Duration.ofMinutes(15), 3, 5, 1000);
+    }
+
+    @Test
+    void rejectsUsernameAfterMaxFailures() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            loginAttemptTracker.reserve(username, ip);
+        }
+
+        // Act & Assert
+        assertNull(loginAttemptTracker.reserve(username, "10.0.0.1"));
+        assertNull(loginAttemptTracker.reserve("USERNAME", "10.0.0.1"));
+        assertNotNull(loginAttemptTracker.reserve("otherUsername", "10.0.0.1"));
+    }
+
+    @Test
+    void rejectsIpAfterMaxFailuresAcrossUsernames() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            loginAttemptTracker.reserve("username" + i, ip);
+        }
+
+        // Act & Assert
+        assertNull(loginAttemptTracker.reserve("otherUsername", ip));
+        assertNotNull(loginAttemptTracker.reserve("otherUsername", "10.0.0.1"));
+    }
+
+    @Test
+    void rejectedAttemptsDoNotCount() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            loginAttemptTracker.reserve(username, ip);
+        }
+        for (int i = 0; i < 10; i++) {
+            loginAttemptTracker.reserve(username, ip);
+        }
+
+        // Act & Assert
+        // The IP allows five failures, three are counted.
+        assertNotNull(loginAttemptTracker.reserve("otherUsername", ip));
+        assertNotNull(loginAttemptTracker.reserve("otherUsername", ip));
+        assertNull(loginAttemptTracker.reserve("otherUsername", ip));
+    }
+
+    @Test
+    void successfulLoginClearsUsernameFailures() {
+        // Arrange
+        for (int i = 0; i < 2; i++) {
+            loginAttemptTracker.reserve(username, ip);
+        }
+        LoginAttemptTracker.Attempt attempt = loginAttemptTracker.reserve(username, ip);
+
+        // Act
+        loginAttemptTracker.recordSuccess(attempt);
+
+        // Assert
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(loginAttemptTracker.reserve(username, "10.0.0.1"));
+        }
+        // The IP allows five failures, two are counted.
+        assertNotNull(loginAttemptTracker.reserve("otherUsername", ip));
+        assertNotNull(loginAttemptTracker.reserve("otherUsername", ip));
+        assertNotNull(loginAttemptTracker.reserve("otherUsername", ip));
+    }
+
+    @Test
+    void refundedAttemptsDoNotCount() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            loginAttemptTracker.refund(loginAttemptTracker.reserve(username, ip));
+        }
+
+        // Act
+        LoginAttemptTracker.Attempt attempt = loginAttemptTracker.reserve(username, ip);
+
+        // Assert
+        assertNotNull(attempt);
+    }
+
+    @Test
+    void parallelReservesForTheSameUsernameNeverExceedTheLimit() throws Exception {
+        // Arrange
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LoginAttemptTracker.Attempt>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            // Every guess comes from another IP, so only the limit of the username applies.
+            String threadIp = "10.0.0." + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return loginAttemptTracker.reserve(username, threadIp);
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int reserved = 0;
+        for (Future<LoginAttemptTracker.Attempt> future : futures) {
+            if (future.get(10, TimeUnit.SECONDS) != null) {
+                reserved++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertTrue(reserved >= 1 && reserved <= 3, "reserved " + reserved);
+        assertNull(loginAttemptTracker.reserve(username, "10.0.1.1"));
+    }
+
+    @Test
+    void retriesAfterTheOldestFailureLeavesTheWindow() throws InterruptedException {
+        // Arrange
+        loginAttemptTracker = new LoginAttemptTracker(Duration.ofSeconds(10), 3, 5, 1000);
+        loginAttemptTracker.reserve(username, ip);
+        Thread.sleep(2100);
+        for (int i = 0; i < 2; i++) {
+            loginAttemptTracker.reserve(username, ip);
+        }
+
+        // Act
+        long retryAfterSeconds = loginAttemptTracker.getRetryAfterSeconds(username, ip);
+
+        // Assert
+        assertTrue(retryAfterSeconds >= 7 && retryAfterSeconds <= 8, "retry after " + retryAfterSeconds);
+    }
+
+    @Test
+    void forgetsFailuresOutsideTheWindow() throws InterruptedException {
+        // Arrange
+        loginAttemptTracker = new LoginAttemptTracker(Duration.ofMillis(200), 3, 5, 1000);
+        for (int i = 0; i < 3; i++) {
+            loginAttemptTracker.reserve(username, ip);
+        }
+
+        // Act
+        Thread.sleep(300);
+
+        // Assert
+        assertNotNull(loginAttemptTracker.reserve(username, ip));
+    }
+}
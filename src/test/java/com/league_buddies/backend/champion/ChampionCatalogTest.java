@@ -0,0 +1,48 @@
+package com.league_buddies.backend.champion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChampionCatalogTest {
+    private final ChampionCatalog championCatalog = new ChampionCatalog(List.of(
+            new Champion((short) 3, "Lee Sin"),
+            new Champion((short) 1, "Ahri"),
+            new Champion((short) 2, "Kai'Sa")
+    ));
+
+    @Test
+    void findsChampionsIgnoringCaseSpacesAndPunctuation() {
+        // Act & Assert
+        assertEquals(Optional.of(new Champion((short) 2, "Kai'Sa")), championCatalog.find("kaisa"));
+        assertEquals(Optional.of(new Champion((short) 3, "Lee Sin")), championCatalog.find("LEESIN"));
+        assertTrue(championCatalog.find("Teemo").isEmpty());
+        assertTrue(championCatalog.find(null).isEmpty());
+    }
+
+    @Test
+    void mapsIdsToNames() {
+        // Act & Assert
+        assertEquals("Ahri", championCatalog.nameOf((short) 1));
+        assertNull(championCatalog.nameOf((short) 4));
+        assertEquals(3, championCatalog.getMaxId());
+        assertEquals(
+                List.of("Ahri", "Kai'Sa", "Lee Sin"),
+                championCatalog.getChampions().stream().map(Champion::name).toList()
+        );
+    }
+
+    @Test
+    void findsChampionsNamedInText() {
+        // Act
+        List<Champion> named = championCatalog.namedIn("lee sin or kaisa duo");
+
+        // Assert
+        assertEquals(List.of("Kai'Sa", "Lee Sin"), named.stream().map(Champion::name).toList());
+        assertEquals("or duo", championCatalog.withoutChampionNames("lee sin or kaisa duo"));
+        assertTrue(championCatalog.namedIn("lee").isEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+package com.league_buddies.backend.datasource;
+
+import com.league_buddies.backend.auth.AuthRequest;
+import com.league_buddies.backend.auth.AuthService;
+import com.league_buddies.backend.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two embedded databases stand in for the primary and a replica. Nothing replicates between them, so a row written
+// to the primary can only be read back when the read is routed to the primary.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;DATABASE_TO_LOWER=TRUE",
+        "readReplicas.readYourWritesWindow=PT1M"
+})
+class ReadWriteRoutingDataSourceTest {
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // A real replica gets the schema from the primary. This one is migrated before the application reads from it.
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        registry.add("readReplicas.urls", () -> REPLICA_URL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void readsFromReplicaInReadOnlyTransaction() {
+        // Act
+        String database = databaseOf(true);
+
+        // Assert
+        assertEquals("routing_replica", database);
+    }
+
+    @Test
+    void writesToPrimary() {
+        // Act
+        String database = databaseOf(false);
+
+        // Assert
+        assertEquals("routing_primary", database);
+    }
+
+    @Test
+    void readsFromPrimaryRightAfterTheSameUserWrote() {
+        // Arrange
+        authenticate("writer@gmail.com");
+        databaseOf(false);
+
+        // Act
+        String writerDatabase = databaseOf(true);
+        authenticate("reader@gmail.com");
+        String readerDatabase = databaseOf(true);
+
+        // Assert
+        assertEquals("routing_primary", writerDatabase);
+        assertEquals("routing_replica", readerDatabase);
+    }
+
+    @Test
+    void logsInRightAfterRegistering() {
+        // Arrange
+        authService.register(new AuthRequest("routing@gmail.com", "pw12345")).join();
+        // As if the login reached another instance, whose second-level cache has not seen the user.
+        entityManagerFactory.getCache().evictAll();
+
+        // Act
+        String token = authService.login(new AuthRequest("routing@gmail.com", "pw12345"), "127.0.0.1").join().token();
+
+        // Assert
+        assertNotNull(token);
+        assertTrue(userRepository.findUserDTOByEmailAddress("routing@gmail.com").isEmpty());
+    }
+
+    private String databaseOf(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select database()", String.class))
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static void authenticate(String emailAddress) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(emailAddress, null, List.of())
+        );
+    }
+}
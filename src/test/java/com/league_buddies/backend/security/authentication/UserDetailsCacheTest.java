@@ -0,0 +1,69 @@
+package com.league_buddies.backend.security.authentication;
+
+import com.league_buddies.backend.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDetailsCacheTest {
+    private UserDetailsCache userDetailsCache;
+
+    private final String email = "email@gmail.com";
+
+    private final User user = new User(email, "password");
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        userDetailsCache = new UserDetailsCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void loadsOnlyOnceForRepeatedLookups() {
+        // Act
+        userDetailsCache.get(email, this::load);
+        Optional<User> cachedUser = userDetailsCache.get(email, this::load);
+
+        // Assert
+        assertEquals(user, cachedUser.orElseThrow());
+        assertEquals(1, loads.get());
+        assertEquals(1, userDetailsCache.stats().hitCount());
+        assertEquals(1, userDetailsCache.stats().missCount());
+    }
+
+    @Test
+    void doesNotCacheMissingUsers() {
+        // Act
+        userDetailsCache.get(email, key -> Optional.empty());
+        Optional<User> loadedUser = userDetailsCache.get(email, this::load);
+
+        // Assert
+        assertTrue(loadedUser.isPresent());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void reloadsAfterEviction() {
+        // Arrange
+        userDetailsCache.get(email, this::load);
+
+        // Act
+        userDetailsCache.evict(email);
+        userDetailsCache.get(email, this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    private Optional<User> load(String emailAddress) {
+        loads.incrementAndGet();
+        return Optional.of(user);
+    }
+}
@@ -0,0 +1,75 @@
+package com.league_buddies.backend.security.jwt;
+
+import com.league_buddies.backend.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old validation path (three parses, a new parser and key per parse) with the parse-once path.
+ * Run after {@code mvn test-compile} with the test classpath, e.g.
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main JwtServiceBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+    private static final String PRIVATE_KEY = "c2VjcmV0S2V5Rm9yQmVuY2htYXJraW5nT25seVRoYXRJc0xvbmdFbm91Z2hGb3JIUzI1Ng==";
+
+    private JwtService jwtService;
+
+    private UserDetails userDetails;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(PRIVATE_KEY);
+        userDetails = new User("username", "password");
+        token = jwtService.generateToken("username");
+    }
+
+    @Benchmark
+    public boolean legacyValidation() {
+        String subject = legacyExtractClaims(token).getSubject();
+        return subject.equals(userDetails.getUsername())
+                && legacyExtractClaims(token).getSubject().equals(userDetails.getUsername())
+                && !legacyExtractClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean parseOnceValidation() {
+        ValidatedToken validatedToken = jwtService.validateToken(token);
+        return jwtService.isTokenValid(validatedToken, userDetails);
+    }
+
+    private static Claims legacyExtractClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(PRIVATE_KEY));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,14 +1,25 @@
 package com.league_buddies.backend.security.jwt;
 
+import com.league_buddies.backend.user.Role;
 import com.league_buddies.backend.user.User;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.io.Encoders;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
 class JwtServiceTest {
+    private final String oldKey = "T2xkS2V5VGhhdElzTG9uZ0Vub3VnaEZvckhTMjU2U2lnbmluZ09ubHk=";
+
+    private final String newKey = "TmV3S2V5VGhhdElzTG9uZ0Vub3VnaEZvckhTMjU2U2lnbmluZ09ubHk=";
+
     private JwtService jwtService;
     private String username;
     private String token;
@@ -41,4 +52,102 @@ class JwtServiceTest {
         assertTrue(isTokenValid);
         assertFalse(isBadTokenValid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void validatesTokenOnce() {
+        // Act
+        ValidatedToken validatedToken = jwtService.validateToken(token);
+
+        // Assert
+        assertEquals(username, validatedToken.subject());
+        assertNotNull(validatedToken.expiration());
+        assertFalse(validatedToken.isExpired());
+        assertTrue(jwtService.isTokenValid(validatedToken, new User(username, "1234")));
+    }
+
+    @Test
+    void throwsWhenTokenIsTamperedWith() {
+        // Arrange
+        String tamperedToken = token.substring(0, token.length() - 2) + "xx";
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.validateToken(tamperedToken));
+    }
+
+    @Test
+    void embedsAuthorizationClaims() {
+        // Arrange
+        User user = new User(username, "1234");
+        user.setId(7L);
+        user.setRole(Role.ADMIN);
+        user.setTokenVersion(3);
+
+        // Act
+        ValidatedToken validatedToken = jwtService.validateToken(jwtService.generateToken(user));
+
+        // Assert
+        assertTrue(validatedToken.hasAuthorizationClaims());
+        assertEquals(7L, validatedToken.userId());
+        assertEquals(Role.ADMIN, validatedToken.role());
+        assertEquals(3, validatedToken.tokenVersion());
+    }
+
+    @Test
+    void rejectsTokenWithOutdatedTokenVersion() {
+        // Arrange
+        User user = new User(username, "1234");
+        String oldToken = jwtService.generateToken(user);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+
+        // Act
+        boolean isOldTokenValid = jwtService.isTokenValid(oldToken, user);
+
+        // Assert
+        assertFalse(isOldTokenValid);
+        assertTrue(jwtService.isTokenValid(jwtService.generateToken(user), user));
+    }
+
+    @Test
+    void retiredKeysStillVerifyTokensAfterRotation() {
+        // Arrange
+        JwtService beforeRotation = new JwtService(JwtKeyRing.of("HS256", "2023-01", oldKey, null, null));
+        JwtService afterRotation = new JwtService(JwtKeyRing.of("HS256", "2023-02", newKey, null, "2023-01:" + oldKey));
+        String oldToken = beforeRotation.generateToken(username);
+
+        // Act
+        ValidatedToken validatedToken = afterRotation.validateToken(oldToken);
+
+        // Assert
+        assertEquals(username, validatedToken.subject());
+        assertThrows(JwtException.class, () -> beforeRotation.validateToken(afterRotation.generateToken(username)));
+    }
+
+    @Test
+    void rejectsTokensSignedWithUnknownKeyId() {
+        // Arrange
+        JwtService otherService = new JwtService(JwtKeyRing.of("HS256", "other", newKey, null, null));
+        String otherToken = otherService.generateToken(username);
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtService.validateToken(otherToken));
+    }
+
+    @Test
+    void verifiesRs256TokensWithPublicKeyOnly() throws NoSuchAlgorithmException {
+        // Arrange
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        String privateKey = Encoders.BASE64.encode(keyPair.getPrivate().getEncoded());
+        String publicKey = Encoders.BASE64.encode(keyPair.getPublic().getEncoded());
+        JwtService signingService = new JwtService(JwtKeyRing.of("RS256", "rsa-1", privateKey, publicKey, null));
+        JwtService verifyingService = new JwtService(JwtKeyRing.of("RS256", "rsa-1", "", publicKey, null));
+
+        // Act
+        ValidatedToken validatedToken = verifyingService.validateToken(signingService.generateToken(username));
+
+        // Assert
+        assertEquals(username, validatedToken.subject());
+        assertThrows(IllegalStateException.class, () -> verifyingService.generateToken(username));
+    }
+}
@@ -0,0 +1,84 @@
+package com.league_buddies.backend.security.jwt;
+
+import com.league_buddies.backend.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenVersionRegistryTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @BeforeEach
+    void setUp() {
+        tokenVersionRegistry = new TokenVersionRegistry(userRepository, 100, Duration.ofDays(1));
+    }
+
+    @Test
+    void readsTheMinimumVersionFromTheUserOnce() {
+        // Arrange
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(2));
+
+        // Act
+        boolean oldTokenIsCurrent = tokenVersionRegistry.isCurrent(1L, 1);
+        boolean newTokenIsCurrent = tokenVersionRegistry.isCurrent(1L, 2);
+
+        // Assert
+        assertFalse(oldTokenIsCurrent);
+        assertTrue(newTokenIsCurrent);
+        verify(userRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    void picksUpChangesFromOtherNodesOnceTheEntryExpires() {
+        // Arrange
+        TokenVersionRegistry expiringRegistry = new TokenVersionRegistry(userRepository, 100, Duration.ZERO);
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0), Optional.of(1));
+
+        // Act
+        boolean currentBeforeChange = expiringRegistry.isCurrent(1L, 0);
+        boolean currentAfterChange = expiringRegistry.isCurrent(1L, 0);
+
+        // Assert
+        assertTrue(currentBeforeChange);
+        assertFalse(currentAfterChange);
+    }
+
+    @Test
+    void rejectsTokensOfUsersWithoutRow() {
+        // Arrange
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.empty());
+
+        // Act
+        boolean current = tokenVersionRegistry.isCurrent(1L, 0);
+
+        // Assert
+        assertFalse(current);
+    }
+
+    @Test
+    void appliesBumpsAndRevocationsWithoutLookup() {
+        // Act
+        tokenVersionRegistry.bump(1L, 3);
+        tokenVersionRegistry.revoke(2L);
+
+        // Assert
+        assertFalse(tokenVersionRegistry.isCurrent(1L, 2));
+        assertTrue(tokenVersionRegistry.isCurrent(1L, 3));
+        assertFalse(tokenVersionRegistry.isCurrent(2L, 3));
+    }
+}
@@ -0,0 +1,129 @@
+package com.league_buddies.backend.security.password;
+
+import com.league_buddies.backend.exception.ServiceBusyException;
+import com.league_buddies.backend.util.MessageResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPasswordEncoderTest {
+    private AsyncPasswordEncoder asyncPasswordEncoder;
+
+    private MessageResolver messageResolver;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        messageResolver = new MessageResolver(messageSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        asyncPasswordEncoder.shutdown();
+    }
+
+    @Test
+    void encodesAndMatchesOffTheCallingThread() {
+        // Arrange
+        asyncPasswordEncoder = new AsyncPasswordEncoder(
+                new BCryptPasswordEncoder(4), messageResolver, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(1)
+        );
+
+        // Act
+        String encodedPassword = asyncPasswordEncoder.encode("password").join();
+
+        // Assert
+        assertTrue(asyncPasswordEncoder.matches("password", encodedPassword).join());
+        assertFalse(asyncPasswordEncoder.matches("badPassword", encodedPassword).join());
+    }
+
+    @Test
+    void failsFastWhenQueueIsFull() {
+        // Arrange
+        asyncPasswordEncoder = new AsyncPasswordEncoder(
+                new BlockingPasswordEncoder(), messageResolver, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(2)
+        );
+        // One task runs on the only thread and the next one fills the queue.
+        CompletableFuture<String> running = asyncPasswordEncoder.encode("first");
+        CompletableFuture<String> queued = asyncPasswordEncoder.encode("second");
+
+        // Act
+        ServiceBusyException exception = assertThrows(
+                ServiceBusyException.class, () -> asyncPasswordEncoder.encode("third")
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("serviceBusy"), exception.getMessage());
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertFalse(running.isDone() && queued.isDone());
+    }
+
+    @Test
+    void encodesBatchInOrderWithoutOverflowingTheQueue() {
+        // Arrange
+        asyncPasswordEncoder = new AsyncPasswordEncoder(
+                new BCryptPasswordEncoder(4), messageResolver, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(1)
+        );
+        List<String> rawPasswords = List.of("first", "second", "third", "fourth", "fifth");
+
+        // Act
+        List<String> encodedPasswords = asyncPasswordEncoder.encodeAll(rawPasswords);
+
+        // Assert
+        assertEquals(rawPasswords.size(), encodedPasswords.size());
+        for (int i = 0; i < rawPasswords.size(); i++) {
+            assertTrue(asyncPasswordEncoder.matches(rawPasswords.get(i), encodedPasswords.get(i)).join());
+        }
+    }
+
+    @Test
+    void failsBatchInsteadOfHashingOnTheCallingThreadWhenQueueIsFull() {
+        // Arrange
+        asyncPasswordEncoder = new AsyncPasswordEncoder(
+                new BlockingPasswordEncoder(), messageResolver, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(2)
+        );
+        asyncPasswordEncoder.encode("first");
+        asyncPasswordEncoder.encode("second");
+
+        // Act
+        ServiceBusyException exception = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(
+                ServiceBusyException.class, () -> asyncPasswordEncoder.encodeAll(List.of("third"))
+        ));
+
+        // Assert
+        assertEquals(2, exception.getRetryAfterSeconds());
+    }
+
+    private class BlockingPasswordEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.league_buddies.backend.security.revocation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationStoreTest {
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationStore tokenRevocationStore;
+
+    private final Instant expiresAt = Instant.now().plusSeconds(60);
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationStore = new TokenRevocationStore(revokedTokenRepository, 1000, 0.001);
+    }
+
+    @Test
+    void doesNotQueryDatabaseForTokensThatWereNeverRevoked() {
+        // Act
+        boolean isRevoked = tokenRevocationStore.isRevoked("tokenId");
+
+        // Assert
+        assertFalse(isRevoked);
+        verify(revokedTokenRepository, never()).existsByJtiAndExpiresAtAfter(anyString(), any());
+    }
+
+    @Test
+    void confirmsRevokedTokensWithDatabase() {
+        // Arrange
+        when(revokedTokenRepository.existsByJtiAndExpiresAtAfter(eq("tokenId"), any())).thenReturn(true);
+
+        // Act
+        tokenRevocationStore.revoke("tokenId", expiresAt);
+
+        // Assert
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+        assertTrue(tokenRevocationStore.isRevoked("tokenId"));
+    }
+
+    @Test
+    void ignoresTokensThatAlreadyExpired() {
+        // Act
+        tokenRevocationStore.revoke("tokenId", Instant.now().minusSeconds(1));
+
+        // Assert
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void refreshLoadsRevocationsFromOtherNodes() {
+        // Arrange
+        when(revokedTokenRepository.findActiveTokenIds(any())).thenReturn(List.of("otherNodeTokenId"));
+        when(revokedTokenRepository.existsByJtiAndExpiresAtAfter(eq("otherNodeTokenId"), any())).thenReturn(true);
+
+        // Act
+        tokenRevocationStore.refresh();
+
+        // Assert
+        verify(revokedTokenRepository).deleteExpired(any());
+        assertTrue(tokenRevocationStore.isRevoked("otherNodeTokenId"));
+    }
+
+    @Test
+    void bloomFilterNeverReturnsFalseNegatives() {
+        // Arrange
+        BloomFilter bloomFilter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            bloomFilter.put("token-" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(bloomFilter.mightContain("token-" + i));
+            if (bloomFilter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 300);
+    }
+}
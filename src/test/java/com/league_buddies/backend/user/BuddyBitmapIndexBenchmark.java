@@ -0,0 +1,85 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.champion.ChampionCatalog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times buddy filters against an index of two million users with random attributes. Run after
+ * {@code mvn test-compile} with the test classpath, e.g.
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main BuddyBitmapIndexBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuddyBitmapIndexBenchmark {
+    private static final int USERS = 2_000_000;
+
+    private BuddyBitmapIndex buddyBitmapIndex;
+
+    private BuddySearchCriteria positionAndType;
+
+    private BuddySearchCriteria everyFilter;
+
+    @Setup
+    public void setUp() {
+        buddyBitmapIndex = new BuddyBitmapIndex(null, new ChampionCatalog(List.of()), new SimpleMeterRegistry(), 0);
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>(USERS);
+        for (int id = 1; id <= USERS; id++) {
+            User user = new User();
+            user.setId(id);
+            Set<Server> servers = EnumSet.noneOf(Server.class);
+            servers.add(Server.values()[random.nextInt(Server.values().length)]);
+            servers.add(Server.values()[random.nextInt(Server.values().length)]);
+            user.setServers(servers);
+            user.setFavoritePosition(Position.values()[random.nextInt(Position.values().length)]);
+            user.setPlayerType(PlayerType.values()[random.nextInt(PlayerType.values().length)]);
+            user.setWinRate(30 + random.nextFloat() * 40);
+            users.add(user);
+        }
+        buddyBitmapIndex.indexAll(users);
+
+        positionAndType = new BuddySearchCriteria(null, Position.MID, PlayerType.Competitive, null, null);
+        everyFilter = new BuddySearchCriteria(
+                EnumSet.of(Server.EUW, Server.EUNE), Position.MID, PlayerType.Competitive, 50F, 60F
+        );
+    }
+
+    @Benchmark
+    public long countPositionAndType() {
+        return buddyBitmapIndex.count(positionAndType);
+    }
+
+    @Benchmark
+    public long countEveryFilter() {
+        return buddyBitmapIndex.count(everyFilter);
+    }
+
+    @Benchmark
+    public RoaringBitmap candidatesEveryFilter() {
+        return buddyBitmapIndex.candidates(everyFilter);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BuddyBitmapIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,189 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.champion.Champion;
+import com.league_buddies.backend.champion.ChampionCatalog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BuddyBitmapIndexTest {
+    private static final ChampionCatalog CHAMPIONS = new ChampionCatalog(List.of(
+            new Champion((short) 1, "Ahri"), new Champion((short) 2, "Lee Sin")
+    ));
+
+    @Mock
+    private UserRepository userRepository;
+
+    private BuddyBitmapIndex buddyBitmapIndex;
+
+    @BeforeEach
+    void setUp() {
+        buddyBitmapIndex = new BuddyBitmapIndex(userRepository, CHAMPIONS, new SimpleMeterRegistry(), 2);
+        buddyBitmapIndex.indexAll(List.of(
+                user(1, Set.of(Server.EUW), Position.MID, PlayerType.Competitive, 55.5F),
+                user(2, Set.of(Server.NA, Server.EUW), Position.TOP, PlayerType.Casual, 48F),
+                user(3, Set.of(Server.NA), Position.MID, PlayerType.Casual, 61F)
+        ));
+    }
+
+    @Test
+    void matchesEveryUserWithoutFilters() {
+        // Act
+        RoaringBitmap candidates = buddyBitmapIndex.candidates(new BuddySearchCriteria(null, null, null, null, null));
+
+        // Assert
+        assertEquals(RoaringBitmap.bitmapOf(1, 2, 3), candidates);
+    }
+
+    @Test
+    void matchesAnyOfTheServersAndAllOtherFilters() {
+        // Act
+        RoaringBitmap candidates = buddyBitmapIndex.candidates(
+                new BuddySearchCriteria(Set.of(Server.NA, Server.LAN), Position.MID, null, null, null)
+        );
+
+        // Assert
+        assertEquals(RoaringBitmap.bitmapOf(3), candidates);
+    }
+
+    @Test
+    void matchesWinRateRangeByWholePercent() {
+        // Act
+        long count = buddyBitmapIndex.count(new BuddySearchCriteria(null, null, null, 50F, 61.5F));
+
+        // Assert
+        assertEquals(2, count);
+    }
+
+    @Test
+    void matchesExactWinRateWithinTheEdgeBuckets() {
+        // Act
+        long belowUserInBucket = buddyBitmapIndex.count(new BuddySearchCriteria(null, null, null, 50F, 55.4F));
+        long aboveUserInBucket = buddyBitmapIndex.count(new BuddySearchCriteria(null, null, null, 55.6F, null));
+        long inclusiveBounds = buddyBitmapIndex.count(new BuddySearchCriteria(null, null, null, 55.5F, 61F));
+        long withinOneBucket = buddyBitmapIndex.count(new BuddySearchCriteria(null, null, null, 55.2F, 55.7F));
+
+        // Assert
+        assertEquals(0, belowUserInBucket);
+        assertEquals(1, aboveUserInBucket);
+        assertEquals(2, inclusiveBounds);
+        assertEquals(1, withinOneBucket);
+    }
+
+    @Test
+    void matchesFavoriteChampionByCatalogId() {
+        // Arrange
+        User leeSin = user(4, Set.of(Server.EUW), Position.JUNGLE, PlayerType.Casual, 50F);
+        leeSin.setFavoriteChampion("Lee Sin");
+        buddyBitmapIndex.index(leeSin);
+
+        // Act
+        RoaringBitmap candidates = buddyBitmapIndex.candidates(
+                new BuddySearchCriteria(Set.of(Server.EUW), null, null, null, null, "leesin")
+        );
+
+        // Assert
+        assertEquals(RoaringBitmap.bitmapOf(4), candidates);
+        assertEquals(0, buddyBitmapIndex.count(new BuddySearchCriteria(null, null, null, null, null, "Ahri")));
+        assertEquals(0, buddyBitmapIndex.count(new BuddySearchCriteria(null, null, null, null, null, "Teemo")));
+    }
+
+    @Test
+    void movesReindexedUserToItsNewAttributes() {
+        // Act
+        buddyBitmapIndex.index(user(1, Set.of(), Position.SUPPORT, PlayerType.ForFun, 40F));
+
+        // Assert
+        assertEquals(1, buddyBitmapIndex.count(new BuddySearchCriteria(Set.of(Server.EUW), null, null, null, null)));
+        assertEquals(1, buddyBitmapIndex.count(
+                new BuddySearchCriteria(null, Position.SUPPORT, PlayerType.ForFun, null, 45F)
+        ));
+        assertEquals(3, buddyBitmapIndex.size());
+    }
+
+    @Test
+    void removesUsersFromEveryBitmap() {
+        // Act
+        buddyBitmapIndex.removeAll(List.of(1L, 3L));
+
+        // Assert
+        assertEquals(RoaringBitmap.bitmapOf(2), buddyBitmapIndex.candidates(
+                new BuddySearchCriteria(null, null, null, null, null)
+        ));
+        assertEquals(0, buddyBitmapIndex.count(new BuddySearchCriteria(null, Position.MID, null, null, null)));
+    }
+
+    @Test
+    void ranksUsersSharingAServerByCompatibility() {
+        // Arrange
+        BuddyIndexEntry profile = new BuddyIndexEntry(
+                9, Set.of(Server.EUW), Position.JUNGLE, PlayerType.Casual, 50F, null
+        );
+
+        // Act
+        List<BuddyScore> matches = buddyBitmapIndex.topMatches(profile, 20);
+
+        // Assert
+        assertEquals(List.of(new BuddyScore(1, 70), new BuddyScore(2, 58)), matches);
+    }
+
+    @Test
+    void keepsOnlyTheBestMatchesAndLeavesOutTheUserItself() {
+        // Arrange
+        BuddyIndexEntry profile = new BuddyIndexEntry(
+                2, Set.of(Server.NA, Server.EUW), Position.TOP, null, 48F, null
+        );
+
+        // Act
+        List<BuddyScore> matches = buddyBitmapIndex.topMatches(profile, 1);
+
+        // Assert
+        assertEquals(List.of(new BuddyScore(1, 28)), matches);
+    }
+
+    @Test
+    void rebuildsFromTheDatabaseInPages() {
+        // Arrange
+        buddyBitmapIndex = new BuddyBitmapIndex(userRepository, CHAMPIONS, new SimpleMeterRegistry(), 2);
+        when(userRepository.findBuddyIndexEntries(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                new BuddyIndexEntry(1, Set.of(Server.EUW), Position.MID, PlayerType.Competitive, 55.5F, null),
+                new BuddyIndexEntry(2, Set.of(Server.NA), Position.TOP, PlayerType.Casual, 48F, null)
+        ));
+        when(userRepository.findBuddyIndexEntries(eq(2L), any(Pageable.class))).thenReturn(List.of(
+                new BuddyIndexEntry(5, Set.of(), Position.MID, null, 0F, null)
+        ));
+
+        // Act
+        buddyBitmapIndex.rebuild();
+
+        // Assert
+        assertEquals(3, buddyBitmapIndex.size());
+        assertEquals(RoaringBitmap.bitmapOf(1, 5), buddyBitmapIndex.candidates(
+                new BuddySearchCriteria(null, Position.MID, null, null, null)
+        ));
+    }
+
+    private static User user(long id, Set<Server> servers, Position position, PlayerType playerType, float winRate) {
+        User user = new User("user" + id + "@gmail.com", "password");
+        user.setId(id);
+        user.setServers(servers);
+        user.setFavoritePosition(position);
+        user.setPlayerType(playerType);
+        user.setWinRate(winRate);
+        return user;
+    }
+}
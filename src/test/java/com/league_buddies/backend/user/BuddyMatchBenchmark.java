@@ -0,0 +1,71 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.champion.ChampionCatalog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a top 20 compatibility ranking over one million users with random profiles. Run after
+ * {@code mvn test-compile} with the test classpath, e.g.
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main BuddyMatchBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class BuddyMatchBenchmark {
+    private static final int USERS = 1_000_000;
+
+    private BuddyBitmapIndex buddyBitmapIndex;
+
+    private BuddyIndexEntry profile;
+
+    @Setup
+    public void setUp() {
+        buddyBitmapIndex = new BuddyBitmapIndex(null, new ChampionCatalog(List.of()), new SimpleMeterRegistry(), 0);
+        Random random = new Random(42);
+        List<User> users = new ArrayList<>(USERS);
+        for (int id = 1; id <= USERS; id++) {
+            User user = new User();
+            user.setId(id);
+            Set<Server> servers = EnumSet.noneOf(Server.class);
+            servers.add(Server.values()[random.nextInt(Server.values().length)]);
+            servers.add(Server.values()[random.nextInt(Server.values().length)]);
+            user.setServers(servers);
+            user.setFavoritePosition(Position.values()[random.nextInt(Position.values().length)]);
+            user.setPlayerType(PlayerType.values()[random.nextInt(PlayerType.values().length)]);
+            user.setWinRate(30 + random.nextFloat() * 40);
+            users.add(user);
+        }
+        buddyBitmapIndex.indexAll(users);
+
+        profile = new BuddyIndexEntry(
+                USERS + 1, EnumSet.of(Server.EUW, Server.EUNE), Position.ADC, PlayerType.Competitive, 52.5F, null
+        );
+    }
+
+    @Benchmark
+    public List<BuddyScore> topTwentyMatches() {
+        return buddyBitmapIndex.topMatches(profile, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BuddyMatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.league_buddies.backend.user;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompatibilityScorerTest {
+    private static final int EUW = 1 << Server.EUW.ordinal();
+
+    @Test
+    void scoresComplementaryPositionsBothWays() {
+        // Act
+        int adcWithSupport = score(Position.ADC, Position.SUPPORT);
+        int supportWithAdc = score(Position.SUPPORT, Position.ADC);
+        int adcWithAdc = score(Position.ADC, Position.ADC);
+
+        // Assert
+        assertEquals(adcWithSupport, supportWithAdc);
+        assertEquals(CompatibilityScorer.COMPLEMENTARY_POSITIONS, adcWithSupport - adcWithAdc);
+    }
+
+    @Test
+    void givesTopNoComplementaryPositionPoints() {
+        // Act
+        int topWithNoPosition = score(Position.TOP, null);
+        int topWithTop = score(Position.TOP, Position.TOP);
+        int topWithSupport = score(Position.TOP, Position.SUPPORT);
+
+        // Assert
+        assertEquals(topWithTop, topWithNoPosition);
+        assertEquals(topWithTop, topWithSupport);
+    }
+
+    @Test
+    void givesNoComplementaryPositionPointsWithoutPositions() {
+        // Act
+        int noPositions = score(null, null);
+        int noPositionWithTop = score(null, Position.TOP);
+        int noPositionWithAdc = score(null, Position.ADC);
+
+        // Assert
+        assertEquals(noPositions, noPositionWithTop);
+        assertEquals(noPositions, noPositionWithAdc);
+        assertEquals(noPositions, score(Position.ADC, null));
+    }
+
+    @Test
+    void givesNoWinRatePointsForFarApartWinRates() {
+        // Act
+        int score = CompatibilityScorer.score(
+                EUW, (byte) 0, (byte) 0, 20F, EUW, (byte) 0, (byte) 0, 80F
+        );
+
+        // Assert
+        assertEquals(CompatibilityScorer.PER_SHARED_SERVER, score);
+    }
+
+    private static int score(Position position, Position candidatePosition) {
+        return CompatibilityScorer.score(
+                EUW,
+                CompatibilityScorer.encode(position),
+                CompatibilityScorer.encode(PlayerType.Casual),
+                50F,
+                EUW,
+                CompatibilityScorer.encode(candidatePosition),
+                CompatibilityScorer.encode(PlayerType.Casual),
+                50F
+        );
+    }
+}
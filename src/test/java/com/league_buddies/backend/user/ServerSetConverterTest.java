@@ -0,0 +1,35 @@
+package com.league_buddies.backend.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerSetConverterTest {
+    private final ServerSetConverter converter = new ServerSetConverter();
+
+    @Test
+    void roundTripsServersThroughBitmask() {
+        // Arrange
+        Set<Server> servers = EnumSet.of(Server.NA, Server.EUW, Server.LAS);
+
+        // Act
+        Integer bitmask = converter.convertToDatabaseColumn(servers);
+
+        // Assert
+        assertEquals(0b100101, bitmask);
+        assertEquals(servers, converter.convertToEntityAttribute(bitmask));
+    }
+
+    @Test
+    void storesNullAsEmptySet() {
+        // Act
+        Integer bitmask = converter.convertToDatabaseColumn(null);
+
+        // Assert
+        assertEquals(0, bitmask);
+        assertTrue(converter.convertToEntityAttribute(bitmask).isEmpty());
+    }
+}
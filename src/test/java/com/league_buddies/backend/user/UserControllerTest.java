@@ -3,8 +3,11 @@ package com.league_buddies.backend.user;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.league_buddies.backend.exception.ApiException;
 import com.league_buddies.backend.exception.IllegalArgumentException;
+import com.league_buddies.backend.exception.PreconditionFailedException;
 import com.league_buddies.backend.exception.UserNotFoundException;
 import com.league_buddies.backend.security.jwt.JwtService;
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
+import com.league_buddies.backend.security.revocation.TokenRevocationStore;
 import com.league_buddies.backend.util.MessageResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,24 +16,38 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest(UserController.class)
+@Import(MessageResolver.class)
 public class UserControllerTest {
     // TODO Make a constant for the API url to avoid writing it over and over.
     @MockBean
@@ -39,6 +56,12 @@ public class UserControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @MockBean
+    private TokenRevocationStore tokenRevocationStore;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -55,6 +78,8 @@ public class UserControllerTest {
 
     private final User user = new User(email, password);
 
+    private final UserDTO userDTO = UserDTO.builder().displayName(displayName).build();
+
     private String exceptionMessage;
 
     private MessageResolver messageResolver;
@@ -81,7 +106,7 @@ public class UserControllerTest {
     public void throwsWhenUserDoesNotExistInDatabaseWithGivenId() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("userNotFound");
-        when(userService.findById(anyLong())).thenThrow(
+        when(userService.findVersionedUserDTOById(anyLong())).thenThrow(
                 new UserNotFoundException(exceptionMessage)
         );
 
@@ -100,7 +125,9 @@ public class UserControllerTest {
     public void throwsWhenGivenNegativeValueToGetById() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("illegalArgument");
-        when(userService.findById(anyLong())).thenThrow(new IllegalArgumentException(exceptionMessage));
+        when(userService.findVersionedUserDTOById(anyLong())).thenThrow(
+                new IllegalArgumentException(exceptionMessage)
+        );
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -113,10 +140,53 @@ public class UserControllerTest {
         assertEquals(exceptionMessage, apiException.getMessage());
     }
 
+    @Test
+    public void getsBatchOfUsers() throws Exception {
+        // Arrange
+        Map<Long, UserDTO> byId = new LinkedHashMap<>();
+        byId.put(1L, userDTO);
+        byId.put(2L, null);
+        UserBatchResult result = new UserBatchResult(byId, Map.of());
+        when(userService.findUserDTOs(new UserBatchRequest(List.of(1L, 2L), null))).thenReturn(result);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                post(controllerEndpoint + "batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [1, 2]}")
+        ).andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(result, objectMapper.readValue(response.getContentAsString(), UserBatchResult.class));
+    }
+
+    @Test
+    public void streamsListOfUsers() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("[]".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(userService).listUsers(eq(5L), eq(2), any());
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get("/api/v1/user")
+                        .param("afterId", "5")
+                        .param("size", "2"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+        assertEquals("[]", response.getContentAsString());
+    }
+
     @Test
     public void canGetUserById() throws Exception {
         // Arrange
-        when(userService.findById(anyLong())).thenReturn(user);
+        when(userService.findVersionedUserDTOById(anyLong())).thenReturn(new VersionedUserDTO(3, userDTO));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -126,14 +196,76 @@ public class UserControllerTest {
 
         // Assert
         assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
         assertEquals(displayName, user.getDisplayName());
     }
 
+    @Test
+    public void answersRevalidationOfCurrentVersionWithNotModified() throws Exception {
+        // Arrange
+        when(userService.findVersionById(id)).thenReturn(3L);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint + id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals("", response.getContentAsString());
+        verify(userService, never()).findVersionedUserDTOById(anyLong());
+    }
+
+    @Test
+    public void rejectsUpdateOfStaleVersion() throws Exception {
+        // Arrange
+        exceptionMessage = messageResolver.getMessage("userModified");
+        when(userService.updateUser(eq(id), any(User.class), eq(4L))).thenThrow(
+                new PreconditionFailedException(exceptionMessage)
+        );
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                put(controllerEndpoint + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"4\"")
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(user))
+        ).andReturn().getResponse();
+        ApiException apiException = objectMapper.readValue(response.getContentAsString(), ApiException.class);
+
+        // Assert
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), response.getStatus());
+        assertEquals(exceptionMessage, apiException.getMessage());
+    }
+
+    @Test
+    public void rejectsUpdateThatLostARaceWithAnotherUpdate() throws Exception {
+        // Arrange
+        when(userService.updateUser(eq(id), any(User.class), isNull())).thenThrow(
+                new ObjectOptimisticLockingFailureException(User.class, id)
+        );
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                put(controllerEndpoint + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(user))
+        ).andReturn().getResponse();
+        ApiException apiException = objectMapper.readValue(response.getContentAsString(), ApiException.class);
+
+        // Assert
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), response.getStatus());
+        assertEquals(messageResolver.getMessage("userModified"), apiException.getMessage());
+    }
+
     @Test
     public void throwsWhenUserDoesNotExistInDatabaseWithGivenUsername() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("userNotFound");
-        when(userService.findByEmailAddress(anyString())).thenThrow(new UserNotFoundException(exceptionMessage));
+        when(userService.findUserDTOByEmailAddress(anyString())).thenThrow(new UserNotFoundException(exceptionMessage));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -151,7 +283,7 @@ public class UserControllerTest {
     public void throwsWhenGivenEmptyStringToGetByUsername() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("illegalArgument");
-        when(userService.findByEmailAddress(anyString())).thenThrow(new IllegalArgumentException(exceptionMessage));
+        when(userService.findUserDTOByEmailAddress(anyString())).thenThrow(new IllegalArgumentException(exceptionMessage));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -167,7 +299,7 @@ public class UserControllerTest {
     @Test
     public void canGetUserByUsername() throws Exception {
         // Arrange
-        when(userService.findByEmailAddress(anyString())).thenReturn(user);
+        when(userService.findUserDTOByEmailAddress(anyString())).thenReturn(userDTO);
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -180,11 +312,93 @@ public class UserControllerTest {
         assertEquals(displayName, user.getDisplayName());
     }
 
+    @Test
+    public void canSearchUsers() throws Exception {
+        // Arrange
+        UserSearchPage page = new UserSearchPage(List.of(userDTO), "cursor");
+        BuddySearchCriteria criteria = new BuddySearchCriteria(
+                Set.of(Server.EUW, Server.EUNE), Position.MID, PlayerType.Casual, 50F, null
+        );
+        when(userService.searchUsers(criteria, null, 10)).thenReturn(page);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint + "search")
+                        .param("servers", "EUW", "EUNE")
+                        .param("favoritePosition", "MID")
+                        .param("playerType", "Casual")
+                        .param("minWinRate", "50")
+                        .param("size", "10"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(page, objectMapper.readValue(response.getContentAsString(), UserSearchPage.class));
+    }
+
+    @Test
+    public void returnsMatchesOfUser() throws Exception {
+        // Arrange
+        List<BuddyMatch> matches = List.of(new BuddyMatch(UserDTO.builder().id(2L).displayName("Support").build(), 70));
+        when(userService.findMatches(id, 5)).thenReturn(matches);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint + id + "/matches").param("k", "5"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(
+                matches,
+                List.of(objectMapper.readValue(response.getContentAsString(), BuddyMatch[].class))
+        );
+    }
+
+    @Test
+    public void searchesUsersByText() throws Exception {
+        // Arrange
+        UserDTO user = UserDTO.builder().id(4L).displayName("AhriMain").build();
+        UserSearchPage page = new UserSearchPage(List.of(user), null);
+        BuddySearchCriteria criteria = new BuddySearchCriteria(null, Position.MID, null, null, null);
+        when(userService.searchUsersByText("ahri main", criteria, null, 20)).thenReturn(page);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint + "search/text")
+                        .param("q", "ahri main")
+                        .param("favoritePosition", "MID"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(page, objectMapper.readValue(response.getContentAsString(), UserSearchPage.class));
+    }
+
+    @Test
+    public void countsBuddiesMatchingTheFilters() throws Exception {
+        // Arrange
+        BuddySearchCriteria criteria = new BuddySearchCriteria(Set.of(Server.NA), null, PlayerType.ForFun, null, 60F);
+        when(userService.countBuddies(criteria)).thenReturn(42L);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint + "search/count")
+                        .param("servers", "NA")
+                        .param("playerType", "ForFun")
+                        .param("maxWinRate", "60"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("42", response.getContentAsString());
+    }
+
     @Test
     public void throwsWhenUpdateUserGetsNullUser() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("illegalArgument");
-        when(userService.updateUser(anyLong(), any())).thenThrow(new IllegalArgumentException(exceptionMessage));
+        when(userService.updateUser(anyLong(), any(), any())).thenThrow(new IllegalArgumentException(exceptionMessage));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -207,7 +421,7 @@ public class UserControllerTest {
     public void throwsWhenUpdateUserGetsNegativeId() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("illegalArgument");
-        when(userService.updateUser(anyLong(), any())).thenThrow(new IllegalArgumentException(exceptionMessage));
+        when(userService.updateUser(anyLong(), any(), any())).thenThrow(new IllegalArgumentException(exceptionMessage));
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -230,7 +444,7 @@ public class UserControllerTest {
     public void throwsWhenUpdateUserIsCalledWithIdOfNonExistentUser() throws Exception {
         // Arrange
         exceptionMessage = messageResolver.getMessage("userNotFound");
-        when(userService.updateUser(anyLong(), any())).thenThrow(
+        when(userService.updateUser(anyLong(), any(), any())).thenThrow(
                 new UserNotFoundException(exceptionMessage)
         );
 
@@ -256,7 +470,7 @@ public class UserControllerTest {
         String newDisplayName = "Ghost";
         User newUser = new User();
         newUser.setDisplayName(newDisplayName);
-        when(userService.updateUser(anyLong(), any(User.class))).thenReturn(newUser);
+        when(userService.updateUser(anyLong(), any(User.class), any())).thenReturn(newUser);
 
         // Act
         MockHttpServletResponse response = mockMvc.perform(
@@ -273,6 +487,27 @@ public class UserControllerTest {
     }
 
 
+    @Test
+    public void canPatchUser() throws Exception {
+        // Arrange
+        String newDescription = "Jungle main";
+        user.setDescription(newDescription);
+        when(userService.patchUser(anyLong(), any(), any())).thenReturn(user);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                patch(controllerEndpoint + id)
+                        .contentType(UserController.MERGE_PATCH_JSON_VALUE)
+                        .with(csrf())
+                        .content("{\"description\": \"" + newDescription + "\"}")
+        ).andReturn().getResponse();
+        UserDTO patchedUser = objectMapper.readValue(response.getContentAsString(), UserDTO.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(newDescription, patchedUser.description());
+    }
+
     @Test
     public void throwsWhenUserToDeleteDoesNotExistInDatabase() throws Exception {
         // Arrange
@@ -0,0 +1,90 @@
+package com.league_buddies.backend.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.league_buddies.backend.user.UserPatchStatementsTest$RecordingStatementInspector")
+class UserPatchStatementsTest {
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long id;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User("patch@gmail.com", "pw12345");
+        user.setDescription("Old description");
+        id = userRepository.save(user).getId();
+        statements.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void updatesOnlyTheChangedColumn() throws Exception {
+        // Act
+        userService.patchUser(id, objectMapper.readTree("{\"description\": \"New description\"}"), null);
+
+        // Assert
+        assertEquals(List.of("update user_table set description=?,version=? where id=? and version=?"), updates());
+        assertEquals("New description", userRepository.findById(id).orElseThrow().getDescription());
+    }
+
+    @Test
+    void skipsTheUpdateWhenNothingChanged() throws Exception {
+        // Act
+        userService.patchUser(
+                id, objectMapper.readTree("{\"description\": \"Old description\", \"servers\": []}"), null
+        );
+
+        // Assert
+        assertEquals(List.of(), updates());
+    }
+
+    @Test
+    void clearsTheFavoriteChampionForAnEmptyName() throws Exception {
+        // Arrange
+        userService.patchUser(id, objectMapper.readTree("{\"favoriteChampion\": \"Ahri\"}"), null);
+
+        // Act
+        userService.patchUser(id, objectMapper.readTree("{\"favoriteChampion\": \"\"}"), null);
+
+        // Assert
+        assertNull(userRepository.findById(id).orElseThrow().getFavoriteChampion());
+    }
+
+    private static List<String> updates() {
+        return statements.stream().filter(statement -> statement.startsWith("update")).toList();
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
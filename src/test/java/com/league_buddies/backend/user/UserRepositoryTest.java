@@ -0,0 +1,373 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.configuration.PersistenceConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the schema built by the Flyway migrations rather than one generated by Hibernate.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PersistenceConfiguration.class, UserCursorRepository.class})
+class UserRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCursorRepository userCursorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findsUserByEmailAddressRegardlessOfCase() {
+        // Arrange
+        userRepository.saveAndFlush(new User("No3lCodes@Gmail.com", "pw12345"));
+
+        // Act & Assert
+        assertTrue(userRepository.findByEmailAddress(" NO3LCODES@gmail.COM ").isPresent());
+    }
+
+    @Test
+    void rejectsEmailAddressThatOnlyDiffersByCase() {
+        // Arrange
+        userRepository.saveAndFlush(new User("no3lcodes@gmail.com", "pw12345"));
+
+        // Act & Assert
+        assertThrows(
+                DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(new User("NO3LCODES@gmail.com", "pw12345"))
+        );
+    }
+
+    @Test
+    void emailAddressLookupUsesTheUniqueIndex() {
+        // Act
+        String plan = jdbcTemplate.queryForObject(
+                "explain select * from user_table u where u.email_address = 'no3lcodes@gmail.com'", String.class
+        );
+
+        // Assert
+        assertTrue(plan.toLowerCase().contains(User.EMAIL_ADDRESS_CONSTRAINT), plan);
+        assertFalse(plan.toLowerCase().contains("tablescan"), plan);
+    }
+
+    @Test
+    void filtersUsersByServersInTheDatabase() {
+        // Arrange
+        userRepository.saveAndFlush(userOn("euw@gmail.com", EnumSet.of(Server.EUW)));
+        userRepository.saveAndFlush(userOn("eune@gmail.com", EnumSet.of(Server.EUNE, Server.NA)));
+        userRepository.saveAndFlush(userOn("both@gmail.com", EnumSet.of(Server.EUW, Server.EUNE)));
+        userRepository.saveAndFlush(userOn("na@gmail.com", EnumSet.of(Server.NA)));
+        userRepository.saveAndFlush(new User("none@gmail.com", "pw12345"));
+
+        // Act
+        List<String> anyEuropean = userRepository
+                .findPlayingOnAnyServer(EnumSet.of(Server.EUW, Server.EUNE), PageRequest.of(0, 10))
+                .stream().map(User::getEmailAddress).sorted().toList();
+        List<String> allEuropean = userRepository
+                .findPlayingOnAllServers(EnumSet.of(Server.EUW, Server.EUNE), PageRequest.of(0, 10))
+                .stream().map(User::getEmailAddress).toList();
+
+        // Assert
+        assertEquals(List.of("both@gmail.com", "eune@gmail.com", "euw@gmail.com"), anyEuropean);
+        assertEquals(List.of("both@gmail.com"), allEuropean);
+    }
+
+    @Test
+    void pagesUsersByServersInIdOrder() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(userRepository.saveAndFlush(userOn("euw" + i + "@gmail.com", EnumSet.of(Server.EUW))).getId());
+        }
+
+        // Act
+        List<Long> pages = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            userRepository.findPlayingOnAnyServer(EnumSet.of(Server.EUW), PageRequest.of(page, 2))
+                    .forEach(user -> pages.add(user.getId()));
+        }
+        List<Long> allServersPage = userRepository
+                .findPlayingOnAllServers(EnumSet.of(Server.EUW), PageRequest.of(1, 2))
+                .stream().map(User::getId).toList();
+
+        // Assert
+        assertEquals(ids, pages);
+        assertEquals(ids.subList(2, 4), allServersPage);
+    }
+
+    @Test
+    void deletesUsersWithoutLoadingThem() {
+        // Arrange
+        long first = userRepository.saveAndFlush(new User("first@gmail.com", "pw12345")).getId();
+        long second = userRepository.saveAndFlush(new User("second@gmail.com", "pw12345")).getId();
+        long third = userRepository.saveAndFlush(new User("third@gmail.com", "pw12345")).getId();
+
+        // Act
+        List<Long> deletedOne = userRepository.deleteUsersByIdInReturningIds(List.of(first));
+        List<Long> deletedMissing = userRepository.deleteUsersByIdInReturningIds(List.of(first));
+        List<Long> deletedMany = userRepository.deleteUsersByIdInReturningIds(List.of(second, third, -1L));
+
+        // Assert
+        assertEquals(List.of(first), deletedOne);
+        assertEquals(List.of(), deletedMissing);
+        assertEquals(Set.of(second, third), Set.copyOf(deletedMany));
+        assertEquals(0, userRepository.count());
+    }
+
+    @Test
+    void selectsPublicProfileStraightIntoUserDTO() {
+        // Arrange
+        User user = userOn("Profile@gmail.com", EnumSet.of(Server.EUW, Server.NA));
+        user.setDisplayName("Isolated");
+        user.setFavoritePosition(Position.values()[0]);
+        user.setWinRate(55.5F);
+        long id = userRepository.saveAndFlush(user).getId();
+
+        // Act
+        UserDTO byId = userRepository.findUserDTOById(id).orElseThrow();
+        UserDTO byEmailAddress = userRepository.findUserDTOByEmailAddress("PROFILE@gmail.com").orElseThrow();
+
+        // Assert
+        assertEquals("Isolated", byId.displayName());
+        assertEquals(Position.values()[0], byId.favoritePosition());
+        assertEquals(55.5, byId.winRate(), 0.001);
+        assertEquals(EnumSet.of(Server.EUW, Server.NA), byId.servers());
+        assertEquals(byId, byEmailAddress);
+        assertTrue(userRepository.findUserDTOById(id + 1000).isEmpty());
+    }
+
+    @Test
+    void pagesThroughSearchResultsWithKeysetCursor() {
+        // Arrange
+        for (int i = 0; i < 30; i++) {
+            User user = userOn("buddy" + i + "@gmail.com", EnumSet.of(i % 2 == 0 ? Server.EUW : Server.NA));
+            user.setFavoritePosition(Position.MID);
+            user.setPlayerType(PlayerType.Casual);
+            // Ties on the win rate make sure the id breaks them.
+            user.setWinRate(40F + i % 5);
+            userRepository.save(user);
+        }
+        userRepository.flush();
+        BuddySearchCriteria criteria = new BuddySearchCriteria(
+                EnumSet.of(Server.EUW), Position.MID, PlayerType.Casual, 41F, null
+        );
+
+        // Act
+        List<UserDTO> found = new ArrayList<>();
+        BuddySearchCursor cursor = null;
+        List<UserDTO> page;
+        do {
+            page = userRepository.searchUsers(criteria, cursor, 4);
+            found.addAll(page);
+            if (!page.isEmpty()) {
+                UserDTO last = page.get(page.size() - 1);
+                cursor = new BuddySearchCursor((float) last.winRate(), last.id());
+            }
+        } while (page.size() == 4);
+
+        // Assert
+        List<UserDTO> expected = userRepository.findAll().stream()
+                .filter(user -> user.getServers().contains(Server.EUW) && user.getWinRate() >= 41F)
+                .sorted(Comparator.comparing(User::getWinRate).thenComparing(User::getId).reversed())
+                .map(user -> userRepository.findUserDTOById(user.getId()).orElseThrow())
+                .toList();
+        assertEquals(12, expected.size());
+        assertEquals(expected, found);
+    }
+
+    @Test
+    void readsUsersAfterIdFromCursor() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = userOn("cursor" + i + "@gmail.com", EnumSet.of(Server.EUW));
+            user.setFavoriteChampion("Ahri");
+            user.setFavoritePosition(Position.MID);
+            ids.add(userRepository.save(user).getId());
+        }
+        userRepository.flush();
+
+        // Act
+        List<UserDTO> found = new ArrayList<>();
+        userCursorRepository.forEachUserDTO(ids.get(0), 3, found::add);
+
+        // Assert
+        assertEquals(ids.subList(1, 4), found.stream().map(UserDTO::id).toList());
+        assertEquals(userRepository.findUserDTOById(ids.get(1)).orElseThrow(), found.get(0));
+    }
+
+    @Test
+    void readsEveryUserFromCursorInIdOrder() {
+        // Arrange
+        userRepository.saveAllAndFlush(List.of(
+                new User("first@gmail.com", "pw12345"), new User("second@gmail.com", "pw12345")
+        ));
+
+        // Act
+        List<UserDTO> found = new ArrayList<>();
+        userCursorRepository.forEachUserDTO(found::add);
+
+        // Assert
+        List<Long> ids = found.stream().map(UserDTO::id).toList();
+        assertEquals(userRepository.count(), ids.size());
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @Test
+    void findsBatchOfUsersByIdOrEmailAddress() {
+        // Arrange
+        User byId = userRepository.save(new User("byid@gmail.com", "pw12345"));
+        User byEmailAddress = userRepository.save(new User("byemail@gmail.com", "pw12345"));
+        userRepository.saveAndFlush(new User("other@gmail.com", "pw12345"));
+
+        // Act
+        List<UserBatchRow> rows = userRepository.findUserBatchRows(
+                List.of(byId.getId(), byId.getId() + 1000), List.of("byemail@gmail.com", "missing@gmail.com")
+        );
+
+        // Assert
+        assertEquals(2, rows.size());
+        assertTrue(rows.contains(new UserBatchRow(
+                "byid@gmail.com", userRepository.findUserDTOById(byId.getId()).orElseThrow()
+        )));
+        assertTrue(rows.contains(new UserBatchRow(
+                "byemail@gmail.com", userRepository.findUserDTOById(byEmailAddress.getId()).orElseThrow()
+        )));
+        assertEquals(1, userRepository.findUserBatchRows(List.of(byId.getId()), List.of()).size());
+    }
+
+    @Test
+    void rejectsUpdateOfRowChangedSinceItWasRead() {
+        // Arrange
+        User user = userRepository.saveAndFlush(new User("version@gmail.com", "pw12345"));
+        jdbcTemplate.update("update user_table set version = version + 1 where id = ?", user.getId());
+        user.setDescription("Stale write");
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> userRepository.saveAndFlush(user));
+    }
+
+    @Test
+    void searchSeeksThroughTheCompositeIndex() {
+        // Act
+        String plan = jdbcTemplate.queryForObject(
+                "explain select u.id from user_table u where u.favorite_position = 2 and u.player_type = 1 "
+                        + "and u.win_rate <= 50 and (u.win_rate < 50 or u.id < 1000) "
+                        + "order by u.win_rate desc, u.id desc fetch first 21 rows only",
+                String.class
+        );
+
+        // Assert
+        assertTrue(plan.toLowerCase().contains("ix_user_table_position_type_win_rate"), plan);
+        assertFalse(plan.toLowerCase().contains("tablescan"), plan);
+    }
+
+    @Test
+    void searchByPositionAloneSeeksThroughItsOwnIndex() {
+        // Act
+        String plan = jdbcTemplate.queryForObject(
+                "explain select u.id from user_table u where u.favorite_position = 2 "
+                        + "and u.win_rate <= 50 and (u.win_rate < 50 or u.id < 1000) "
+                        + "order by u.win_rate desc, u.id desc fetch first 21 rows only",
+                String.class
+        );
+
+        // Assert
+        assertTrue(plan.toLowerCase().contains("ix_user_table_position_win_rate"), plan);
+        assertFalse(plan.toLowerCase().contains("tablescan"), plan);
+    }
+
+    @Test
+    void storesFavoriteChampionAsCatalogId() {
+        // Arrange
+        User user = new User("kaisa@gmail.com", "pw12345");
+        user.setFavoriteChampion("Kai'Sa");
+        long id = userRepository.saveAndFlush(user).getId();
+
+        // Act
+        Short championId = jdbcTemplate.queryForObject(
+                "select favorite_champion_id from user_table where id = ?", Short.class, id
+        );
+        UserDTO found = userRepository.findUserDTOById(id).orElseThrow();
+
+        // Assert
+        assertEquals("Kai'Sa", jdbcTemplate.queryForObject(
+                "select name from champion where id = ?", String.class, championId
+        ));
+        assertEquals("Kai'Sa", found.favoriteChampion());
+    }
+
+    @Test
+    void filtersSearchByFavoriteChampion() {
+        // Arrange
+        User ahri = userOn("ahri@gmail.com", EnumSet.of(Server.EUW));
+        ahri.setFavoriteChampion("Ahri");
+        User lux = userOn("lux@gmail.com", EnumSet.of(Server.EUW));
+        lux.setFavoriteChampion("Lux");
+        userRepository.saveAllAndFlush(List.of(ahri, lux));
+
+        // Act
+        List<UserDTO> found = userRepository.searchUsers(
+                new BuddySearchCriteria(null, null, null, null, null, "Lux"), null, 10
+        );
+        String plan = jdbcTemplate.queryForObject(
+                "explain select u.id from user_table u where u.favorite_champion_id = 3 "
+                        + "order by u.win_rate desc, u.id desc fetch first 21 rows only",
+                String.class
+        );
+
+        // Assert
+        assertEquals(List.of(lux.getId()), found.stream().map(UserDTO::id).toList());
+        assertTrue(plan.toLowerCase().contains("ix_user_table_champion_win_rate"), plan);
+    }
+
+    @Test
+    void searchesFreeTextForEveryWordAcrossPages() {
+        // Arrange
+        User chill = userOn("chill@gmail.com", EnumSet.of(Server.EUW));
+        chill.setDescription("Looking for a chill DUO");
+        chill.setFavoriteChampion("Ahri");
+        User tryhard = userOn("tryhard@gmail.com", EnumSet.of(Server.NA));
+        tryhard.setDisplayName("AhriMain");
+        tryhard.setDescription("duo tryhard");
+        User solo = userOn("solo@gmail.com", EnumSet.of(Server.EUW));
+        solo.setDescription("Ahri solo only");
+        userRepository.saveAllAndFlush(List.of(chill, tryhard, solo));
+        BuddySearchCriteria noFilters = new BuddySearchCriteria(null, null, null, null, null);
+
+        // Act
+        List<TextSearchHit> firstPage = userRepository.searchUsersByText("ahri duo", noFilters, null, 1);
+        TextSearchCursor cursor = new TextSearchCursor(firstPage.get(0).rank(), firstPage.get(0).user().id());
+        List<TextSearchHit> secondPage = userRepository.searchUsersByText("ahri duo", noFilters, cursor, 1);
+        List<TextSearchHit> onEuw = userRepository.searchUsersByText(
+                "ahri duo", new BuddySearchCriteria(EnumSet.of(Server.EUW), null, null, null, null), null, 10
+        );
+
+        // Assert
+        assertEquals(tryhard.getId(), firstPage.get(0).user().id());
+        assertEquals(chill.getId(), secondPage.get(0).user().id());
+        assertEquals(List.of(chill.getId()), onEuw.stream().map(hit -> hit.user().id()).toList());
+    }
+
+    private static User userOn(String emailAddress, EnumSet<Server> servers) {
+        User user = new User(emailAddress, "pw12345");
+        user.setServers(servers);
+        return user;
+    }
+}
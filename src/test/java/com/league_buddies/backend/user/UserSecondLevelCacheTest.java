@@ -0,0 +1,201 @@
+package com.league_buddies.backend.user;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.league_buddies.backend.user.UserSecondLevelCacheTest$RecordingStatementInspector")
+@AutoConfigureMockMvc
+class UserSecondLevelCacheTest {
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private long id;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User("cached@gmail.com", "pw12345");
+        user.setDisplayName("Cached");
+        id = userRepository.save(user).getId();
+        statements.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void readsUserByIdWithoutSql() {
+        // Act
+        userService.findById(id);
+        User user = userService.findById(id);
+
+        // Assert
+        assertEquals("Cached", user.getDisplayName());
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    void servesProfileAgainWithoutSql() throws Exception {
+        // Arrange
+        mockMvc.perform(get("/api/v1/user/{id}", id).with(user("reader@gmail.com")));
+        statements.clear();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/user/{id}", id).with(user("reader@gmail.com")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.displayName").value("Cached"));
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    void revalidatesProfileWithoutSql() throws Exception {
+        // Arrange
+        userService.findById(id);
+        statements.clear();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/user/{id}", id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                        .with(user("reader@gmail.com")))
+                .andExpect(status().isNotModified());
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    void readsUserByEmailAddressAgainWithoutSql() {
+        // Arrange
+        userService.findByEmailAddress("cached@gmail.com");
+        statements.clear();
+
+        // Act
+        User user = userService.findByEmailAddress(" Cached@Gmail.com ");
+
+        // Assert
+        assertEquals(id, user.getId());
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    void readsUpdatedUserAfterUpdate() {
+        // Arrange
+        User update = new User("renamed@gmail.com", "pw67890");
+        update.setDisplayName("Renamed");
+        update.setRole(Role.USER);
+
+        // Act
+        userService.updateUser(id, update, null);
+        statements.clear();
+        User byId = userService.findById(id);
+        User byEmailAddress = userRepository.findByEmailAddress("renamed@gmail.com").orElseThrow();
+
+        // Assert
+        assertEquals("Renamed", byId.getDisplayName());
+        assertEquals(id, byEmailAddress.getId());
+        assertEquals("Renamed", byEmailAddress.getDisplayName());
+        assertEquals(List.of(), statements);
+        assertTrue(userRepository.findByEmailAddress("cached@gmail.com").isEmpty());
+    }
+
+    @Test
+    void findsNoUserAfterDelete() {
+        // Arrange
+        userService.findById(id);
+
+        // Act
+        userService.deleteUser(id);
+
+        // Assert
+        assertTrue(userRepository.findById(id).isEmpty());
+        assertTrue(userRepository.findByEmailAddress("cached@gmail.com").isEmpty());
+    }
+
+    @Test
+    void keepsOtherUsersCachedAfterDelete() {
+        // Arrange
+        long other = userRepository.save(new User("other@gmail.com", "pw12345")).getId();
+        userService.findById(id);
+        userService.findByEmailAddress("cached@gmail.com");
+
+        // Act
+        userService.deleteUser(other);
+        statements.clear();
+        User byId = userService.findById(id);
+        User byEmailAddress = userService.findByEmailAddress("cached@gmail.com");
+
+        // Assert
+        assertEquals(id, byId.getId());
+        assertEquals(id, byEmailAddress.getId());
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    void keepsOtherUsersCachedAfterBulkDelete() {
+        // Arrange
+        long other = userRepository.save(new User("other@gmail.com", "pw12345")).getId();
+        userService.findById(id);
+        userService.findByEmailAddress("cached@gmail.com");
+
+        // Act
+        userService.deleteUsers(List.of(other));
+        statements.clear();
+        User byId = userService.findById(id);
+        User byEmailAddress = userService.findByEmailAddress("cached@gmail.com");
+
+        // Assert
+        assertEquals(id, byId.getId());
+        assertEquals(id, byEmailAddress.getId());
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    void findsReregisteredUserAfterBulkDelete() {
+        // Arrange
+        userService.findById(id);
+        userService.findByEmailAddress("cached@gmail.com");
+
+        // Act
+        userService.deleteUsers(List.of(id));
+        long reregistered = userRepository.save(new User("cached@gmail.com", "pw12345")).getId();
+
+        // Assert
+        assertTrue(userRepository.findById(id).isEmpty());
+        assertEquals(reregistered, userService.findByEmailAddress("cached@gmail.com").getId());
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
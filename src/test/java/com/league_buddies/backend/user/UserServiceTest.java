@@ -1,19 +1,37 @@
 package com.league_buddies.backend.user;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.league_buddies.backend.champion.Champion;
+import com.league_buddies.backend.champion.ChampionCatalog;
 import com.league_buddies.backend.exception.IllegalArgumentException;
+import com.league_buddies.backend.exception.PreconditionFailedException;
 import com.league_buddies.backend.exception.UserNotFoundException;
+import com.league_buddies.backend.security.authentication.UserDetailsCache;
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
 import com.league_buddies.backend.util.MessageResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.dao.QueryTimeoutException;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -22,8 +40,17 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCursorRepository userCursorRepository;
+
     private UserService userService;
 
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    private UserDetailsCache userDetailsCache;
+
+    private BuddyBitmapIndex buddyBitmapIndex;
+
     private Optional<User> optionalUser;
 
     private User user;
@@ -47,7 +74,22 @@ class UserServiceTest {
         messageSource.setDefaultEncoding("UTF-8");
 
         messageResolver = new MessageResolver(messageSource);
-        userService = new UserService(userRepository, messageResolver);
+        tokenVersionRegistry = new TokenVersionRegistry(userRepository, 100, Duration.ofDays(1));
+        userDetailsCache = new UserDetailsCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        ChampionCatalog championCatalog = new ChampionCatalog(List.of(
+                new Champion((short) 1, "Ahri"), new Champion((short) 2, "Kai'Sa")
+        ));
+        buddyBitmapIndex = new BuddyBitmapIndex(userRepository, championCatalog, new SimpleMeterRegistry(), 100);
+        userService = new UserService(
+                userRepository,
+                userCursorRepository,
+                messageResolver,
+                tokenVersionRegistry,
+                userDetailsCache,
+                buddyBitmapIndex,
+                championCatalog,
+                new ObjectMapper()
+        );
 
         user = new User(email, password);
         user.setEmailAddress(email);
@@ -136,6 +178,148 @@ class UserServiceTest {
         assertEquals(messageResolver.getMessage("illegalArgument"), exception.getMessage());
     }
 
+    @Test
+    void findsUserDTOById() {
+        // Arrange
+        UserDTO userDTO = UserDTO.builder().displayName(username).build();
+        when(userRepository.findUserDTOById(anyLong())).thenReturn(Optional.of(userDTO));
+
+        // Act
+        UserDTO foundUser = userService.findUserDTOById(id);
+
+        // Assert
+        assertEquals(userDTO, foundUser);
+    }
+
+    @Test
+    void throwsWhenUserDTODoesNotExistWithGivenUsername() {
+        // Arrange
+        when(userRepository.findUserDTOByEmailAddress(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        UserNotFoundException exception = assertThrows(
+                UserNotFoundException.class, () -> userService.findUserDTOByEmailAddress(email)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("userNotFound"), exception.getMessage());
+    }
+
+    @Test
+    void returnsCursorOfLastUserWhenThereIsAnotherSearchPage() {
+        // Arrange
+        BuddySearchCriteria criteria = new BuddySearchCriteria(null, null, null, null, null);
+        UserDTO first = UserDTO.builder().id(7L).winRate(60.5).build();
+        UserDTO second = UserDTO.builder().id(3L).winRate(55.25).build();
+        UserDTO third = UserDTO.builder().id(9L).winRate(50).build();
+        when(userRepository.searchUsers(criteria, null, 3)).thenReturn(List.of(first, second, third));
+
+        // Act
+        UserSearchPage page = userService.searchUsers(criteria, null, 2);
+
+        // Assert
+        assertEquals(List.of(first, second), page.users());
+        assertEquals(new BuddySearchCursor(55.25F, 3L), BuddySearchCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void returnsNoCursorOnLastSearchPage() {
+        // Arrange
+        BuddySearchCriteria criteria = new BuddySearchCriteria(null, null, null, null, null);
+        BuddySearchCursor cursor = new BuddySearchCursor(55.25F, 3L);
+        UserDTO last = UserDTO.builder().id(9L).winRate(50).build();
+        when(userRepository.searchUsers(criteria, cursor, 3)).thenReturn(List.of(last));
+
+        // Act
+        UserSearchPage page = userService.searchUsers(criteria, cursor.encode(), 2);
+
+        // Assert
+        assertEquals(List.of(last), page.users());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void returnsMatchesInRankOrderWithTheirProfiles() {
+        // Arrange
+        UserDTO profile = UserDTO.builder().id(id).servers(Set.of(Server.EUW)).favoritePosition(Position.ADC).build();
+        User support = new User("support@gmail.com", password);
+        support.setId(2L);
+        support.setServers(Set.of(Server.EUW));
+        support.setFavoritePosition(Position.SUPPORT);
+        User top = new User("top@gmail.com", password);
+        top.setId(3L);
+        top.setServers(Set.of(Server.EUW));
+        top.setFavoritePosition(Position.TOP);
+        buddyBitmapIndex.indexAll(List.of(top, support));
+        UserDTO supportDTO = UserDTO.builder().id(2L).displayName("Support").build();
+        UserDTO topDTO = UserDTO.builder().id(3L).displayName("Top").build();
+        when(userRepository.findUserDTOById(id)).thenReturn(Optional.of(profile));
+        when(userRepository.findUserDTOsByIdIn(List.of(2L, 3L))).thenReturn(List.of(topDTO, supportDTO));
+
+        // Act
+        List<BuddyMatch> matches = userService.findMatches(id, 20);
+
+        // Assert
+        assertEquals(List.of(supportDTO, topDTO), matches.stream().map(BuddyMatch::user).toList());
+    }
+
+    @Test
+    void throwsWhenTooManyMatchesAreRequested() {
+        // Act
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class, () -> userService.findMatches(id, 101)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("illegalArgument"), exception.getMessage());
+    }
+
+    @Test
+    void returnsCursorOfLastTextSearchHitWhenThereIsAnotherPage() {
+        // Arrange
+        BuddySearchCriteria criteria = new BuddySearchCriteria(null, Position.MID, null, null, null);
+        UserDTO first = UserDTO.builder().id(7L).build();
+        UserDTO second = UserDTO.builder().id(3L).build();
+        when(userRepository.searchUsersByText("ahri", criteria, null, 2)).thenReturn(List.of(
+                new TextSearchHit(first, 0.6F), new TextSearchHit(second, 0.4F)
+        ));
+
+        // Act
+        UserSearchPage page = userService.searchUsersByText("ahri", criteria, null, 1);
+
+        // Assert
+        assertEquals(List.of(first), page.users());
+        assertEquals(new TextSearchCursor(0.6F, 7L), TextSearchCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void throwsWhenSearchTextIsBlank() {
+        // Arrange
+        BuddySearchCriteria criteria = new BuddySearchCriteria(null, null, null, null, null);
+
+        // Act
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class, () -> userService.searchUsersByText(" ", criteria, null, 20)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("illegalArgument"), exception.getMessage());
+    }
+
+    @Test
+    void throwsWhenSearchCursorIsInvalid() {
+        // Arrange
+        BuddySearchCriteria criteria = new BuddySearchCriteria(null, null, null, null, null);
+
+        // Act
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class, () -> userService.searchUsers(criteria, "not-a-cursor", 20)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("illegalArgument"), exception.getMessage());
+    }
+
     @Test
     void throwsWhenUserToUpdateDoesNotExist() {
         // Arrange
@@ -143,7 +327,7 @@ class UserServiceTest {
 
         // Act
         UserNotFoundException exception = assertThrows(
-                UserNotFoundException.class, () -> userService.updateUser(anyLong(), user)
+                UserNotFoundException.class, () -> userService.updateUser(anyLong(), user, null)
         );
 
         // Assert
@@ -154,7 +338,7 @@ class UserServiceTest {
     void throwsWhenGivenUserToUpdateIsNull() {
         // Act
         IllegalArgumentException exception = assertThrows(
-                IllegalArgumentException.class, () -> userService.updateUser(1L, null)
+                IllegalArgumentException.class, () -> userService.updateUser(1L, null, null)
         );
 
         // Assert
@@ -165,7 +349,7 @@ class UserServiceTest {
     void throwsWhenGivenNegativeIdToUpdateUser() {
         // Act
         IllegalArgumentException exception = assertThrows(
-                IllegalArgumentException.class, () -> userService.updateUser(-1L, user)
+                IllegalArgumentException.class, () -> userService.updateUser(-1L, user, null)
         );
 
         // Assert
@@ -180,13 +364,180 @@ class UserServiceTest {
         newUserData.setEmailAddress("newEmail@gmail.com");
 
         // Act
-        User updatedUser = userService.updateUser(id, newUserData);
+        User updatedUser = userService.updateUser(id, newUserData, null);
 
         // Assert
         assertEquals(newUserData.getEmailAddress(), updatedUser.getEmailAddress());
         assertEquals(newUserData.getDisplayName(), updatedUser.getDisplayName());
     }
 
+    @Test
+    void findsBatchOfUsersAndMarksMissingOnesWithNull() {
+        // Arrange
+        UserDTO first = UserDTO.builder().id(1).displayName("First").build();
+        UserDTO second = UserDTO.builder().id(2).displayName("Second").build();
+        when(userRepository.findUserBatchRows(List.of(1L, 3L), List.of("second@gmail.com", "missing@gmail.com")))
+                .thenReturn(List.of(
+                        new UserBatchRow("first@gmail.com", first),
+                        new UserBatchRow("second@gmail.com", second)
+                ));
+
+        // Act
+        UserBatchResult result = userService.findUserDTOs(new UserBatchRequest(
+                List.of(1L, 3L), List.of(" Second@gmail.com", "missing@gmail.com")
+        ));
+
+        // Assert
+        assertEquals(List.of(1L, 3L), List.copyOf(result.byId().keySet()));
+        assertEquals(first, result.byId().get(1L));
+        assertNull(result.byId().get(3L));
+        assertEquals(second, result.byEmailAddress().get(" Second@gmail.com"));
+        assertTrue(result.byEmailAddress().containsKey("missing@gmail.com"));
+        assertNull(result.byEmailAddress().get("missing@gmail.com"));
+    }
+
+    @Test
+    void throwsIllegalArgumentExceptionForTooLargeBatch() {
+        // Arrange
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userService.findUserDTOs(new UserBatchRequest(ids, null)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesListedUsersAsJsonArray() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(2);
+            consumer.accept(UserDTO.builder().id(6).displayName("Six").build());
+            consumer.accept(UserDTO.builder().id(7).displayName("Seven").build());
+            return null;
+        }).when(userCursorRepository).forEachUserDTO(eq(5L), eq(2L), any(Consumer.class));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        userService.listUsers(5, 2, outputStream);
+
+        // Assert
+        List<UserDTO> users = new ObjectMapper().readValue(
+                outputStream.toByteArray(), new TypeReference<List<UserDTO>>() { }
+        );
+        assertEquals(List.of(6L, 7L), users.stream().map(UserDTO::id).toList());
+        assertEquals("Seven", users.get(1).displayName());
+    }
+
+    @Test
+    void throwsIllegalArgumentExceptionForTooLargeList() {
+        // Act & Assert
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> userService.listUsers(0, 100_001, new ByteArrayOutputStream())
+        );
+    }
+
+    @Test
+    void throwsPreconditionFailedExceptionWhenUpdatingStaleVersion() {
+        // Arrange
+        user.setVersion(5);
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(id, new User(), 4L));
+        assertThrows(PreconditionFailedException.class, () -> userService.patchUser(
+                id, new ObjectMapper().readTree("{\"description\": \"Stale\"}"), 4L
+        ));
+        assertNull(user.getDescription());
+    }
+
+    @Test
+    void patchSpellsFavoriteChampionAsInTheCatalog() throws Exception {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        User patchedUser = userService.patchUser(
+                id, objectMapper.readTree("{\"favoriteChampion\": \"kaisa\"}"), null
+        );
+
+        // Assert
+        assertEquals("Kai'Sa", patchedUser.getFavoriteChampion());
+    }
+
+    @Test
+    void throwsIllegalArgumentExceptionForUnknownChampion() {
+        // Arrange
+        User newUserData = new User(email, password);
+        newUserData.setFavoriteChampion("Teemo");
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+
+        // Act
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> userService.updateUser(id, newUserData, null)
+        );
+
+        // Assert
+        assertEquals("There is no champion named Teemo.", exception.getMessage());
+    }
+
+    @Test
+    void patchesOnlyFieldsPresentInThePatch() throws Exception {
+        // Arrange
+        user.setDescription("Old description");
+        user.setFavoriteChampion("Ahri");
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        User patchedUser = userService.patchUser(id, objectMapper.readTree(
+                "{\"description\": \"New description\", \"favoriteChampion\": null, \"servers\": [\"EUW\"]}"
+        ), null);
+
+        // Assert
+        assertEquals("New description", patchedUser.getDescription());
+        assertNull(patchedUser.getFavoriteChampion());
+        assertEquals(Set.of(Server.EUW), patchedUser.getServers());
+        assertEquals(username, patchedUser.getDisplayName());
+        assertEquals(email, patchedUser.getEmailAddress());
+    }
+
+    @Test
+    void patchIgnoresValuesThatAnUpdateIgnores() throws Exception {
+        // Arrange
+        user.setWinRate(52.5F);
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        User patchedUser = userService.patchUser(id, objectMapper.readTree(
+                "{\"displayName\": \"\", \"winRate\": -5, \"description\": \"New description\"}"
+        ), null);
+
+        // Assert
+        assertEquals(username, patchedUser.getDisplayName());
+        assertEquals(52.5F, patchedUser.getWinRate());
+        assertEquals("New description", patchedUser.getDescription());
+    }
+
+    @Test
+    void throwsWhenPatchContainsFieldThatCannotBePatched() throws Exception {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> userService.patchUser(id, objectMapper.readTree("{\"role\": \"ADMIN\"}"), null)
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("illegalArgument"), exception.getMessage());
+        assertEquals(Role.USER, user.getRole());
+    }
+
     @Test
     void throwsWhenDeleteUserGetsANegativeId() {
         // Act
@@ -225,4 +576,150 @@ class UserServiceTest {
                 new Object[] {id}
                 ), response);
     }
-}
\ No newline at end of file
+
+    @Test
+    void bumpsTokenVersionWhenRoleChanges() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        User newUserData = new User();
+        newUserData.setRole(Role.ADMIN);
+
+        // Act
+        User updatedUser = userService.updateUser(id, newUserData, null);
+
+        // Assert
+        assertEquals(1, updatedUser.getTokenVersion());
+        assertFalse(tokenVersionRegistry.isCurrent(id, 0));
+        assertTrue(tokenVersionRegistry.isCurrent(id, 1));
+    }
+
+    @Test
+    void revokesTokensWhenUserIsDeleted() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+
+        // Act
+        userService.deleteUser(id);
+
+        // Assert
+        assertFalse(tokenVersionRegistry.isCurrent(id, user.getTokenVersion()));
+    }
+
+    @Test
+    void evictsCachedUserDetailsWhenUserIsUpdated() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        userDetailsCache.get(email, key -> Optional.of(user));
+        User newUserData = new User();
+        newUserData.setDisplayName("Noel");
+
+        // Act
+        userService.updateUser(id, newUserData, null);
+
+        // Assert
+        assertTrue(userDetailsCache.get(email, key -> Optional.empty()).isEmpty());
+    }
+
+    @Test
+    void countsUpdatedUserUnderNewAttributes() {
+        // Arrange
+        user.setFavoritePosition(Position.TOP);
+        buddyBitmapIndex.index(user);
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        User newUserData = new User();
+        newUserData.setFavoritePosition(Position.MID);
+
+        // Act
+        userService.updateUser(id, newUserData, null);
+
+        // Assert
+        assertEquals(0, userService.countBuddies(new BuddySearchCriteria(null, Position.TOP, null, null, null)));
+        assertEquals(1, userService.countBuddies(new BuddySearchCriteria(null, Position.MID, null, null, null)));
+    }
+
+    @Test
+    void removesDeletedUserFromBuddyIndex() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        buddyBitmapIndex.index(user);
+
+        // Act
+        userService.deleteUser(id);
+
+        // Assert
+        assertEquals(0, buddyBitmapIndex.size());
+    }
+
+    @Test
+    void evictsCachedUserDetailsWhenUserIsDeleted() {
+        // Arrange
+        when(userRepository.findById(anyLong())).thenReturn(optionalUser);
+        userDetailsCache.get(email, key -> Optional.of(user));
+
+        // Act
+        userService.deleteUser(id);
+
+        // Assert
+        assertTrue(userDetailsCache.get(email, key -> Optional.empty()).isEmpty());
+    }
+
+    @Test
+    void deletesManyUsersInBatches() {
+        // Arrange
+        List<Long> ids = LongStream.range(0, 1500).boxed().toList();
+        when(userRepository.deleteUsersByIdInReturningIds(anyCollection())).thenAnswer(invocation ->
+                List.copyOf(invocation.<Collection<Long>>getArgument(0))
+        );
+        userDetailsCache.get(email, key -> Optional.of(user));
+
+        // Act
+        String response = userService.deleteUsers(ids);
+
+        // Assert
+        verify(userRepository, times(2)).deleteUsersByIdInReturningIds(anyCollection());
+        assertEquals(messageResolver.getMessage("usersDeleted", new Object[] {1500}), response);
+        assertTrue(userDetailsCache.get(email, key -> Optional.empty()).isEmpty());
+        assertFalse(tokenVersionRegistry.isCurrent(id, user.getTokenVersion()));
+    }
+
+    @Test
+    void revokesTheDeletedBatchesWhenALaterBatchFails() {
+        // Arrange
+        List<Long> ids = LongStream.range(id, id + 1500).boxed().toList();
+        when(userRepository.deleteUsersByIdInReturningIds(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<Long>>getArgument(0)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        userDetailsCache.get(email, key -> Optional.of(user));
+
+        // Act & Assert
+        assertThrows(QueryTimeoutException.class, () -> userService.deleteUsers(ids));
+        assertTrue(userDetailsCache.get(email, key -> Optional.empty()).isEmpty());
+        assertFalse(tokenVersionRegistry.isCurrent(id, user.getTokenVersion()));
+    }
+
+    @Test
+    void revokesOnlyTheUsersThatWereDeleted() {
+        // Arrange
+        when(userRepository.deleteUsersByIdInReturningIds(List.of(id, 404L))).thenReturn(List.of(id));
+        when(userRepository.findTokenVersionById(404L)).thenReturn(Optional.of(0));
+
+        // Act
+        String response = userService.deleteUsers(List.of(id, 404L));
+
+        // Assert
+        assertEquals(messageResolver.getMessage("usersDeleted", new Object[] {1}), response);
+        assertFalse(tokenVersionRegistry.isCurrent(id, user.getTokenVersion()));
+        assertTrue(tokenVersionRegistry.isCurrent(404L, 0));
+    }
+
+    @Test
+    void throwsWhenDeleteUsersGetsANegativeId() {
+        // Act
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class, () -> userService.deleteUsers(List.of(1L, -2L))
+        );
+
+        // Assert
+        assertEquals(messageResolver.getMessage("illegalArgument"), exception.getMessage());
+    }
+}
@@ -211,4 +211,13 @@ class UserTest {
         assertEquals("no3lcodes@gmail.com", user.getEmailAddress());
         assertNotEquals("", user.getEmailAddress());
     }
+
+    @Test
+    void normalizesEmailAddress() {
+        // Act
+        user.setEmailAddress("  No3lCodes@Gmail.com ");
+
+        // Assert
+        assertEquals("no3lcodes@gmail.com", user.getEmailAddress());
+    }
 }
@@ -0,0 +1,135 @@
+package com.league_buddies.backend.user;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tsvector search with a LIKE '%word%' scan over the same fields, on a Postgres database seeded with
+ * synthetic users. It needs a Postgres database of its own, given with -Dbenchmark.url, -Dbenchmark.username and
+ * -Dbenchmark.password. The migrations are applied and the users are inserted on the first run only.
+ * Run after {@code mvn test-compile} with the test classpath, e.g.
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main UserTextSearchBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserTextSearchBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    private static final String FULL_TEXT_SEARCH = "select id, ts_rank(search_vector, text_query) as rank "
+            + "from user_table, websearch_to_tsquery('simple', ?) text_query "
+            + "where search_vector @@ text_query "
+            + "order by rank desc, id desc limit " + PAGE_SIZE;
+
+    private static final String LIKE_ANY_FIELD = "(lower(display_name) like ? "
+            + "or lower(league_of_legends_user_name) like ? or lower(description) like ? "
+            + "or favorite_champion_id in (select id from champion where lower(name) like ?))";
+
+    private static final String LIKE_SEARCH = "select id from user_table "
+            + "where " + LIKE_ANY_FIELD + " and " + LIKE_ANY_FIELD + " "
+            + "order by id desc limit " + PAGE_SIZE;
+
+    @Param("1000000")
+    private int users;
+
+    // A common pair of words matching about one user in twelve, and a name matching a single user.
+    @Param({"thresh tryhard", "player123457"})
+    private String text;
+
+    private Connection connection;
+
+    private PreparedStatement fullTextSearch;
+
+    private PreparedStatement likeSearch;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = System.getProperty("benchmark.url", "jdbc:postgresql://localhost:5432/league_buddies_benchmark");
+        String username = System.getProperty("benchmark.username", "postgres");
+        String password = System.getProperty("benchmark.password", "postgres");
+        Flyway.configure().dataSource(url, username, password).baselineOnMigrate(true).load().migrate();
+
+        connection = DriverManager.getConnection(url, username, password);
+        seed();
+        fullTextSearch = connection.prepareStatement(FULL_TEXT_SEARCH);
+        fullTextSearch.setString(1, text);
+        likeSearch = connection.prepareStatement(LIKE_SEARCH);
+        String[] words = text.split(" ");
+        for (int i = 0; i < 8; i++) {
+            likeSearch.setString(i + 1, "%" + words[Math.min(i / 4, words.length - 1)] + "%");
+        }
+    }
+
+    private void seed() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("select count(*) from user_table")) {
+            count.next();
+            if (count.getLong(1) >= users) {
+                return;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement("""
+                insert into user_table (id, email_address, password, role, token_version, win_rate, servers_bitmask,
+                        display_name, favorite_champion_id, description)
+                select nextval('user_table_seq'), 'benchmark' || i || '@example.com', 'password', 'USER', 0,
+                        random() * 100, 1 << (i % 6), 'Player' || i,
+                        (select id from champion
+                         where name = (array['Ahri', 'Yasuo', 'Thresh', 'Jinx', 'Lee Sin', 'Lux'])[i % 6 + 1]),
+                        'Looking for a ' || (array['chill', 'tryhard', 'competitive', 'casual'])[i % 4 + 1]
+                        || ' duo to climb with ' || md5(i::text)
+                from generate_series(1, ?) i
+                """);
+             Statement statement = connection.createStatement()) {
+            insert.setInt(1, users);
+            insert.executeUpdate();
+            statement.execute("analyze user_table");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int fullTextSearch() throws SQLException {
+        return countRows(fullTextSearch);
+    }
+
+    @Benchmark
+    public int likeSearch() throws SQLException {
+        return countRows(likeSearch);
+    }
+
+    private static int countRows(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserTextSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.configuration.PersistenceConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The full-text search only runs on Postgres, the embedded database falls back to substring matching. These tests
+// need an empty Postgres database and are skipped unless it is given, e.g.
+// mvn test -Dtest=UserTextSearchPostgresTest -DpostgresTest.url=jdbc:postgresql://localhost:5432/league_buddies_test
+// with postgresTest.username and postgresTest.password if they are not postgres and empty.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PersistenceConfiguration.class)
+@EnabledIfSystemProperty(named = "postgresTest.url", matches = ".+")
+class UserTextSearchPostgresTest {
+    private static final BuddySearchCriteria NO_FILTERS = new BuddySearchCriteria(null, null, null, null, null);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("postgresTest.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("postgresTest.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("postgresTest.password", ""));
+    }
+
+    @Test
+    void ranksNameMatchesAboveDescriptionMatches() {
+        // Arrange
+        User inDescription = user("description@gmail.com", null, "Looking for a jungler", null);
+        User inName = user("name@gmail.com", "Jungler", null, null);
+        userRepository.saveAllAndFlush(List.of(inDescription, inName));
+
+        // Act
+        List<TextSearchHit> hits = userRepository.searchUsersByText("jungler", NO_FILTERS, null, 10);
+
+        // Assert
+        assertEquals(List.of(inName.getId(), inDescription.getId()), ids(hits));
+        assertTrue(hits.get(0).rank() > hits.get(1).rank());
+    }
+
+    @Test
+    void pagesThroughEqualRanksWithTheCursor() {
+        // Arrange
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(user("duo" + i + "@gmail.com", null, "duo", null));
+        }
+        userRepository.saveAllAndFlush(users);
+
+        // Act
+        List<Long> paged = pageThrough("duo", 2);
+
+        // Assert
+        assertEquals(
+                users.stream().map(User::getId).sorted(Comparator.reverseOrder()).toList(),
+                paged
+        );
+    }
+
+    @Test
+    void pagesThroughUsersRankedUpForTheirFavoriteChampion() {
+        // Arrange
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(user("ahri" + i + "@gmail.com", null, "duo", "Ahri"));
+            users.add(user("lux" + i + "@gmail.com", null, "duo", "Lux"));
+        }
+        userRepository.saveAllAndFlush(users);
+        List<TextSearchHit> allAtOnce = userRepository.searchUsersByText("ahri duo", NO_FILTERS, null, 10);
+
+        // Act
+        List<Long> paged = pageThrough("ahri duo", 1);
+
+        // Assert
+        assertEquals(3, allAtOnce.size());
+        assertTrue(allAtOnce.stream().allMatch(hit -> "Ahri".equals(hit.user().favoriteChampion())));
+        assertEquals(ids(allAtOnce), paged);
+    }
+
+    // Follows the (rank, id) cursor from page to page like a client would.
+    private List<Long> pageThrough(String text, int size) {
+        List<Long> ids = new ArrayList<>();
+        TextSearchCursor cursor = null;
+        List<TextSearchHit> page;
+        do {
+            page = userRepository.searchUsersByText(text, NO_FILTERS, cursor, size);
+            ids.addAll(ids(page));
+            if (!page.isEmpty()) {
+                TextSearchHit last = page.get(page.size() - 1);
+                cursor = TextSearchCursor.decode(new TextSearchCursor(last.rank(), last.user().id()).encode());
+            }
+        } while (page.size() == size);
+        return ids;
+    }
+
+    private static List<Long> ids(List<TextSearchHit> hits) {
+        return hits.stream().map(hit -> hit.user().id()).toList();
+    }
+
+    private static User user(String emailAddress, String displayName, String description, String favoriteChampion) {
+        User user = new User(emailAddress, "pw12345");
+        user.setDisplayName(displayName);
+        user.setDescription(description);
+        user.setFavoriteChampion(favoriteChampion);
+        user.setServers(EnumSet.of(Server.EUW));
+        return user;
+    }
+}
@@ -0,0 +1,113 @@
+package com.league_buddies.backend.user;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.league_buddies.backend.BackendApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the PUT update, which copies every field of the request onto the user, with the merge patch path, which
+ * reads only the fields in the patch. User is {@code @DynamicUpdate}, so both write only the columns that changed.
+ * Every call changes the description to a new value, so each one really writes, and patchWithoutChanges shows the
+ * cost of the dirty check alone. 8 threads each update a row of their own, so that the version column does not turn
+ * the comparison into a measure of lost updates. Runs against the embedded test database. Run after
+ * {@code mvn test-compile} with the test classpath, e.g.
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main UserUpdateBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class UserUpdateBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        private ConfigurableApplicationContext context;
+
+        private UserService userService;
+
+        private UserRepository userRepository;
+
+        private ObjectMapper objectMapper;
+
+        private final AtomicInteger users = new AtomicInteger();
+
+        @Setup
+        public void setUp() {
+            context = new SpringApplicationBuilder(BackendApplication.class)
+                    .run("--server.port=0", "--logging.level.root=WARN");
+            userService = context.getBean(UserService.class);
+            userRepository = context.getBean(UserRepository.class);
+            objectMapper = context.getBean(ObjectMapper.class);
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    // The row updated by one benchmark thread.
+    @State(Scope.Thread)
+    public static class ThreadUser {
+        private long id;
+
+        private ObjectMapper objectMapper;
+
+        private JsonNode unchangedPatch;
+
+        // Suffixed to the description, so that no update leaves the row as it was.
+        private long updates;
+
+        @Setup
+        public void setUp(Application application) throws Exception {
+            User user = new User("benchmark" + application.users.incrementAndGet() + "@gmail.com", "pw12345");
+            user.setDisplayName("Benchmark");
+            user.setDescription("Description");
+            id = application.userRepository.save(user).getId();
+
+            objectMapper = application.objectMapper;
+            unchangedPatch = application.objectMapper.readTree("{\"displayName\": \"Benchmark\"}");
+        }
+
+        private String nextDescription() {
+            return "Changed description " + ++updates;
+        }
+    }
+
+    @Benchmark
+    public User fullUpdate(Application application, ThreadUser user) {
+        User fullUpdate = new User();
+        fullUpdate.setDescription(user.nextDescription());
+        return application.userService.updateUser(user.id, fullUpdate, null);
+    }
+
+    @Benchmark
+    public User patchOneField(Application application, ThreadUser user) {
+        JsonNode descriptionPatch = user.objectMapper.createObjectNode().put("description", user.nextDescription());
+        return application.userService.patchUser(user.id, descriptionPatch, null);
+    }
+
+    @Benchmark
+    public User patchWithoutChanges(Application application, ThreadUser user) {
+        return application.userService.patchUser(user.id, user.unchangedPatch, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserUpdateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.league_buddies.backend.user;
+
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserUpdateConflictTest {
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long id;
+
+    @BeforeEach
+    void setUp() {
+        id = userRepository.save(new User("conflict@gmail.com", "pw12345")).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void keepsTokensValidWhenTheVersionCheckFailsAtCommit() {
+        // Arrange
+        User update = new User("conflict@gmail.com", "pw12345");
+        update.setRole(Role.ADMIN);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        TransactionTemplate concurrentTransaction = new TransactionTemplate(transactionManager);
+        concurrentTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // Act
+        assertThrows(OptimisticLockingFailureException.class, () -> transaction.executeWithoutResult(status -> {
+            userService.updateUser(id, update, null);
+            // Another request updates the user before this one commits.
+            concurrentTransaction.executeWithoutResult(concurrentStatus -> jdbcTemplate.update(
+                    "update user_table set version = version + 1 where id = ?", id
+            ));
+        }));
+
+        // Assert
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select token_version from user_table where id = ?", Integer.class, id
+        ));
+        assertTrue(tokenVersionRegistry.isCurrent(id, 0));
+    }
+}
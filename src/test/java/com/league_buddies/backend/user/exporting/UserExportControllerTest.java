@@ -0,0 +1,152 @@
+package com.league_buddies.backend.user.exporting;
+
+import com.league_buddies.backend.configuration.SecurityConfiguration;
+import com.league_buddies.backend.security.jwt.JwtService;
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
+import com.league_buddies.backend.security.revocation.TokenRevocationStore;
+import com.league_buddies.backend.util.MessageResolver;
+import com.league_buddies.backend.user.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@WebMvcTest(UserExportController.class)
+@Import({SecurityConfiguration.class, MessageResolver.class})
+class UserExportControllerTest {
+    @MockBean
+    private UserExportService userExportService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @MockBean
+    private TokenRevocationStore tokenRevocationStore;
+
+    @MockBean
+    private AuthenticationManager authenticationManager;
+
+    @MockBean
+    private AuthenticationProvider authenticationProvider;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final String controllerEndpoint = "/api/v1/admin/users/export";
+
+    private final String body = "{\"id\":1}\n{\"id\":2}\n";
+
+    @Test
+    void adminCanExportNdjson() throws Exception {
+        // Arrange
+        writesBody();
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint)
+                        .with(user("admin@gmail.com").authorities(() -> Role.ADMIN.name())))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    void compressesExportWhenClientAcceptsGzip() throws Exception {
+        // Arrange
+        writesBody();
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint)
+                        .with(user("admin@gmail.com").authorities(() -> Role.ADMIN.name()))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(body, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doesNotCompressExportWhenClientRefusesGzip() throws Exception {
+        // Arrange
+        writesBody();
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint)
+                        .with(user("admin@gmail.com").authorities(() -> Role.ADMIN.name()))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    void readsQualityOfGzipAndWildcard() {
+        // Act & Assert
+        assertTrue(UserExportController.acceptsGzip("gzip;q=0.5"));
+        assertTrue(UserExportController.acceptsGzip("br, *"));
+        assertFalse(UserExportController.acceptsGzip("gzip; q=0.0"));
+        assertFalse(UserExportController.acceptsGzip("*, gzip;q=0"));
+        assertFalse(UserExportController.acceptsGzip("*;q=0"));
+        assertFalse(UserExportController.acceptsGzip("x-gzip-like"));
+        assertFalse(UserExportController.acceptsGzip(null));
+    }
+
+    @Test
+    void rejectsExportFromNonAdmin() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                get(controllerEndpoint)
+                        .with(user("email@gmail.com").authorities(() -> Role.USER.name())))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatus());
+        verifyNoInteractions(userExportService);
+    }
+
+    private void writesBody() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(body.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(userExportService).exportUsers(any());
+    }
+}
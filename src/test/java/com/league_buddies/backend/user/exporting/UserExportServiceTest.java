@@ -0,0 +1,51 @@
+package com.league_buddies.backend.user.exporting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.league_buddies.backend.user.UserCursorRepository;
+import com.league_buddies.backend.user.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class UserExportServiceTest {
+    @Mock
+    private UserCursorRepository userCursorRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesOneUserPerLine() throws Exception {
+        // Arrange
+        UserDTO first = UserDTO.builder().id(1).displayName("First").build();
+        UserDTO second = UserDTO.builder().id(2).displayName("Second").winRate(51.5).build();
+        doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(userCursorRepository).forEachUserDTO(any(Consumer.class));
+        UserExportService userExportService = new UserExportService(userCursorRepository, objectMapper);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        userExportService.exportUsers(outputStream);
+
+        // Assert
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals(first, objectMapper.readValue(lines[0], UserDTO.class));
+        assertEquals(second, objectMapper.readValue(lines[1], UserDTO.class));
+        assertEquals("", lines[2]);
+    }
+}
@@ -0,0 +1,99 @@
+package com.league_buddies.backend.user.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.league_buddies.backend.configuration.SecurityConfiguration;
+import com.league_buddies.backend.security.jwt.JwtService;
+import com.league_buddies.backend.security.jwt.TokenVersionRegistry;
+import com.league_buddies.backend.security.revocation.TokenRevocationStore;
+import com.league_buddies.backend.util.MessageResolver;
+import com.league_buddies.backend.user.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@WebMvcTest(UserImportController.class)
+@Import({SecurityConfiguration.class, MessageResolver.class})
+class UserImportControllerTest {
+    @MockBean
+    private UserImportService userImportService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @MockBean
+    private TokenRevocationStore tokenRevocationStore;
+
+    @MockBean
+    private AuthenticationManager authenticationManager;
+
+    @MockBean
+    private AuthenticationProvider authenticationProvider;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final String controllerEndpoint = "/api/v1/admin/users/import";
+
+    private final String body = "emailAddress,password\nemail@gmail.com,pw12345\n";
+
+    @Test
+    void adminCanImportCsv() throws Exception {
+        // Arrange
+        UserImportResult result = new UserImportResult(1, 1, 0, List.of(), 5, 200);
+        when(userImportService.importUsers(any(), eq(UserImportFormat.CSV))).thenReturn(result);
+
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                post(controllerEndpoint)
+                        .with(csrf())
+                        .with(user("admin@gmail.com").authorities(() -> Role.ADMIN.name()))
+                        .contentType(UserImportController.TEXT_CSV_VALUE)
+                        .content(body))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals(result, objectMapper.readValue(response.getContentAsString(), UserImportResult.class));
+    }
+
+    @Test
+    void rejectsImportFromNonAdmin() throws Exception {
+        // Act
+        MockHttpServletResponse response = mockMvc.perform(
+                post(controllerEndpoint)
+                        .with(csrf())
+                        .with(user("email@gmail.com").authorities(() -> Role.USER.name()))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"emailAddress\":\"email@gmail.com\",\"password\":\"pw12345\"}"))
+                .andReturn().getResponse();
+
+        // Assert
+        assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatus());
+        verifyNoInteractions(userImportService);
+    }
+}
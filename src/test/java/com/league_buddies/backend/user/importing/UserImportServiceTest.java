@@ -0,0 +1,118 @@
+package com.league_buddies.backend.user.importing;
+
+import com.league_buddies.backend.exception.IllegalArgumentException;
+import com.league_buddies.backend.user.User;
+import com.league_buddies.backend.user.UserRepository;
+import com.league_buddies.backend.util.MessageResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "jdbcBatching.batchSize=10")
+class UserImportServiceTest {
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MessageResolver messageResolver;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void importsCsvAcrossSeveralBatches() throws Exception {
+        // Arrange
+        StringBuilder csv = new StringBuilder("displayName,emailAddress,password\n");
+        for (int i = 0; i < 25; i++) {
+            csv.append("Player").append(i).append(",player").append(i).append("@gmail.com,pw").append(i).append('\n');
+        }
+        csv.append("Quoted,\"quoted@gmail.com\",\"pass,\"\"word\"\n");
+
+        // Act
+        UserImportResult result = userImportService.importUsers(stream(csv.toString()), UserImportFormat.CSV);
+
+        // Assert
+        assertEquals(26, result.rowsRead());
+        assertEquals(26, result.imported());
+        assertEquals(0, result.failed());
+        assertEquals(26, userRepository.count());
+        User quoted = userRepository.findByEmailAddress("quoted@gmail.com").orElseThrow();
+        assertTrue(passwordEncoder.matches("pass,\"word", quoted.getPassword()));
+        assertEquals("Player7", userRepository.findByEmailAddress("player7@gmail.com").orElseThrow().getDisplayName());
+    }
+
+    @Test
+    void reportsFailedRowsAndImportsTheRest() throws Exception {
+        // Arrange
+        userRepository.save(new User("existing@gmail.com", "pw"));
+        String ndjson = """
+                {"emailAddress":"first@gmail.com","password":"pw1"}
+                {"emailAddress":"existing@gmail.com","password":"pw2"}
+                {"emailAddress":"first@gmail.com","password":"pw3"}
+                {"emailAddress":"noPassword@gmail.com"}
+                not json
+
+                {"emailAddress":"second@gmail.com","password":"pw4"}
+                """;
+
+        // Act
+        UserImportResult result = userImportService.importUsers(stream(ndjson), UserImportFormat.NDJSON);
+
+        // Assert
+        assertEquals(6, result.rowsRead());
+        assertEquals(2, result.imported());
+        assertEquals(4, result.failed());
+        assertEquals(
+                List.of(2L, 3L, 4L, 5L),
+                result.failures().stream().map(UserImportFailure::lineNumber).sorted().toList()
+        );
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    void reportsRowsRejectedByTheDatabaseAsInvalid() throws Exception {
+        // Arrange
+        String csv = "displayName,emailAddress,password\n"
+                + "First,first@gmail.com,pw1\n"
+                + "x".repeat(300) + ",long@gmail.com,pw2\n";
+
+        // Act
+        UserImportResult result = userImportService.importUsers(stream(csv), UserImportFormat.CSV);
+
+        // Assert
+        assertEquals(1, result.imported());
+        assertEquals(1, result.failed());
+        UserImportFailure failure = result.failures().get(0);
+        assertEquals("long@gmail.com", failure.emailAddress());
+        assertEquals(messageResolver.getMessage("importRowRejected"), failure.reason());
+    }
+
+    @Test
+    void rejectsCsvWithoutRequiredColumns() {
+        // Act & Assert
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> userImportService.importUsers(stream("emailAddress\nemail@gmail.com\n"), UserImportFormat.CSV)
+        );
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
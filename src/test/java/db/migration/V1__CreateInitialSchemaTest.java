@@ -0,0 +1,44 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class V1__CreateInitialSchemaTest {
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:baseline_migration;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+    );
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @Test
+    void upgradesDatabaseCreatedByHibernateBeforeMigrations() throws Exception {
+        // Arrange
+        // The tables as Hibernate created them, without a Flyway history, like a database from before migrations.
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(
+                    connection, new ClassPathResource("db/migration/V1__create_initial_schema.sql")
+            );
+        }
+        jdbcTemplate.update(
+                "insert into user_table (id, email_address, password, role, win_rate) "
+                        + "values (1, 'existing@gmail.com', 'pw', 'USER', 0)"
+        );
+
+        // Act
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+
+        // Assert
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select token_version from user_table where id = 1", Integer.class
+        ));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from revoked_token", Integer.class));
+    }
+}
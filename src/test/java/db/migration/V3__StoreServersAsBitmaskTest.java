@@ -0,0 +1,77 @@
+package db.migration;
+
+import com.league_buddies.backend.user.Server;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class V3__StoreServersAsBitmaskTest {
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:servers_migration;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+    );
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @Test
+    void convertsExistingServerArraysToBitmasks() {
+        // Arrange
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+        jdbcTemplate.update(
+                "insert into user_table (id, email_address, password, role, token_version, win_rate, servers) "
+                        + "values (1, 'euw@gmail.com', 'pw', 'USER', 0, 0, array[2, 0])"
+        );
+        jdbcTemplate.update(
+                "insert into user_table (id, email_address, password, role, token_version, win_rate) "
+                        + "values (2, 'none@gmail.com', 'pw', 'USER', 0, 0)"
+        );
+
+        // Act
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        // Assert
+        assertEquals(0b101, jdbcTemplate.queryForObject(
+                "select servers_bitmask from user_table where id = 1", Integer.class
+        ));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select servers_bitmask from user_table where id = 2", Integer.class
+        ));
+    }
+
+    @Test
+    void convertsExistingSerializedServerSetsToBitmasks() throws Exception {
+        // Arrange
+        DriverManagerDataSource serializedDataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:serialized_servers_migration;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+        );
+        JdbcTemplate serializedJdbcTemplate = new JdbcTemplate(serializedDataSource);
+        Flyway.configure().dataSource(serializedDataSource).target("2").load().migrate();
+        // Older Hibernate versions stored the set as a serialized Java object.
+        serializedJdbcTemplate.execute("alter table user_table drop column servers");
+        serializedJdbcTemplate.execute("alter table user_table add column servers varbinary(1024)");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(new HashSet<>(List.of(Server.EUNE, Server.LAS)));
+        }
+        serializedJdbcTemplate.update(
+                "insert into user_table (id, email_address, password, role, token_version, win_rate, servers) "
+                        + "values (1, 'eune@gmail.com', 'pw', 'USER', 0, 0, ?)",
+                (Object) bytes.toByteArray()
+        );
+
+        // Act
+        Flyway.configure().dataSource(serializedDataSource).load().migrate();
+
+        // Assert
+        assertEquals(0b100010, serializedJdbcTemplate.queryForObject(
+                "select servers_bitmask from user_table where id = 1", Integer.class
+        ));
+    }
+}
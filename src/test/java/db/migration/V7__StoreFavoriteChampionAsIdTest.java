@@ -0,0 +1,57 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class V7__StoreFavoriteChampionAsIdTest {
+    private final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:champion_migration;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+    );
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @Test
+    void replacesChampionNamesWithCatalogIds() {
+        // Arrange
+        Flyway.configure().dataSource(dataSource).target("6").load().migrate();
+        insertUser(1, "kaisa");
+        insertUser(2, "Lee Sin");
+        insertUser(3, "Not a champion");
+
+        // Act
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        // Assert
+        assertEquals("Kai'Sa", championOf(1));
+        assertEquals("Lee Sin", championOf(2));
+        assertNull(championOf(3));
+        assertEquals("Not a champion", jdbcTemplate.queryForObject(
+                "select favorite_champion from unmatched_favorite_champion where user_id = 3", String.class
+        ));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from unmatched_favorite_champion", Integer.class
+        ));
+    }
+
+    private void insertUser(long id, String favoriteChampion) {
+        jdbcTemplate.update(
+                "insert into user_table (id, email_address, password, role, token_version, win_rate, "
+                        + "favorite_champion) values (?, ?, 'pw', 'USER', 0, 0, ?)",
+                id, id + "@gmail.com", favoriteChampion
+        );
+    }
+
+    private String championOf(long id) {
+        return jdbcTemplate.queryForObject(
+                "select c.name from user_table u left join champion c on c.id = u.favorite_champion_id "
+                        + "where u.id = ?",
+                String.class,
+                id
+        );
+    }
+}